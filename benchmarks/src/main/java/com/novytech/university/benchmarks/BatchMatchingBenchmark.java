@@ -0,0 +1,62 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.matching.CompiledDfa;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Many short records against one DFA: interleaved batch execution against matching one record at a time.
+// With k = 16 the table of (a|b)*a(a|b)^k is about a megabyte, so steps miss the faster caches.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchMatchingBenchmark {
+    private static final int MIN_RECORD_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 40;
+
+    @Param({"6", "16"})
+    private int k;
+
+    @Param({"100000"})
+    private int recordCount;
+
+    private CompiledDfa dfa;
+    private List<String> records;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        dfa = CompiledDfa.of(SuperAutomaton.fromAutomaton(SimulationBenchmark.kthFromEnd(k)));
+        Random random = new Random(42);
+        records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            int length = MIN_RECORD_LENGTH + random.nextInt(MAX_RECORD_LENGTH - MIN_RECORD_LENGTH + 1);
+            records.add(SimulationBenchmark.randomInput(random.nextLong(), length));
+        }
+    }
+
+    // Throughput is in batches; multiply by recordCount for records per second
+    @Benchmark
+    public BitSet matchOneByOne() {
+        BitSet accepted = new BitSet(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            if (dfa.accepts(records.get(i))) {
+                accepted.set(i);
+            }
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public BitSet matchInterleaved() {
+        return dfa.acceptsAll(records);
+    }
+}
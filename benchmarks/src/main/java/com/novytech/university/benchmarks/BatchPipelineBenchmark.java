@@ -0,0 +1,66 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.batch.BatchPipeline;
+import com.novytech.university.batch.BatchSummary;
+import com.novytech.university.batch.JobResult;
+import com.novytech.university.batch.ResultSink;
+import com.novytech.university.benchmarks.RandomAutomatonGenerator.EpsShape;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A whole batch through BatchPipeline; compare threads = 1 against the core count for the scaling
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchPipelineBenchmark {
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    @Param({"1", "2", "4"})
+    private int threads;
+
+    @Param({"64"})
+    private int jobs;
+
+    @Param({"300"})
+    private int states;
+
+    private List<CompactAutomaton> automata;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        automata = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            automata.add(new RandomAutomatonGenerator(i, states, 2, 1.2, 0.3, EpsShape.THOMPSON).generate());
+        }
+    }
+
+    @Benchmark
+    public BatchSummary runBatch() throws InterruptedException {
+        try (BatchPipeline pipeline = new BatchPipeline(threads, TIMEOUT_MILLIS, new DiscardingSink())) {
+            for (int i = 0; i < automata.size(); i++) {
+                CompactAutomaton automaton = automata.get(i);
+                pipeline.submit("job-" + i, () -> automaton);
+            }
+            return pipeline.awaitCompletion();
+        }
+    }
+
+    // Keeps writing out of the measurement
+    private static final class DiscardingSink implements ResultSink {
+        @Override
+        public void accept(JobResult result) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
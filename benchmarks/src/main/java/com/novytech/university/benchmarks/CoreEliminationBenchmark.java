@@ -0,0 +1,45 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.benchmarks.RandomAutomatonGenerator.EpsShape;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// EliminationBenchmark's automata eliminated on the compact core, which has a single engine
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoreEliminationBenchmark {
+    @Param({"1000", "10000"})
+    private int states;
+
+    @Param({"4"})
+    private int alphabetSize;
+
+    @Param({"2.0"})
+    private double edgeDensity;
+
+    @Param({"0.5"})
+    private double epsDensity;
+
+    @Param({"RANDOM", "CHAIN", "CYCLE", "THOMPSON"})
+    private EpsShape shape;
+
+    private CompactAutomaton core;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        core = new RandomAutomatonGenerator(42, states, alphabetSize, edgeDensity, epsDensity, shape).generate();
+    }
+
+    // The core is immutable, so unlike the object graph it needs no rebuilding between invocations
+    @Benchmark
+    public CompactAutomaton eliminateEps() {
+        return core.eliminateEps();
+    }
+}
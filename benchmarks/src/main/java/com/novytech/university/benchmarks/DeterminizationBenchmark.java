@@ -0,0 +1,70 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.benchmarks.RandomAutomatonGenerator.EpsShape;
+import com.novytech.university.superautomata.Minimization;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeterminizationBenchmark {
+    // Random NFAs blow up quickly under subset construction, keep them small and sparse
+    @Param({"100", "400"})
+    private int states;
+
+    @Param({"2"})
+    private int alphabetSize;
+
+    @Param({"1.2"})
+    private double edgeDensity;
+
+    @Param({"0.3"})
+    private double epsDensity;
+
+    @Param({"RANDOM", "THOMPSON"})
+    private EpsShape shape;
+
+    // Pool size for determinizeInParallel, 0 for one thread per core; compare 1 against the core count for the speedup
+    @Param({"0"})
+    private int parallelism;
+
+    private CompactAutomaton core;
+    private SuperAutomaton superAutomaton;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        core = new RandomAutomatonGenerator(42, states, alphabetSize, edgeDensity, epsDensity, shape).generate().eliminateEps();
+        superAutomaton = SuperAutomaton.fromAutomaton(core);
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SuperAutomaton determinize() {
+        return SuperAutomaton.fromAutomaton(core);
+    }
+
+    @Benchmark
+    public SuperAutomaton determinizeInParallel() {
+        return SuperAutomaton.fromAutomaton(core, pool);
+    }
+
+    @Benchmark
+    public Minimization minimize() {
+        return superAutomaton.minimize();
+    }
+}
@@ -0,0 +1,59 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.EpsClosureEngine;
+import com.novytech.university.benchmarks.RandomAutomatonGenerator.EpsShape;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The object-graph engines; CoreEliminationBenchmark runs the same shapes on the compact core
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EliminationBenchmark {
+    @Param({"1000", "10000"})
+    private int states;
+
+    @Param({"4"})
+    private int alphabetSize;
+
+    @Param({"2.0"})
+    private double edgeDensity;
+
+    @Param({"0.5"})
+    private double epsDensity;
+
+    @Param({"RANDOM", "CHAIN", "CYCLE", "THOMPSON"})
+    private EpsShape shape;
+
+    @Param({"TRANSITIVE", "SCC_BITSET"})
+    private EpsClosureEngine engine;
+
+    private CompactAutomaton core;
+    private Automaton automaton;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        core = new RandomAutomatonGenerator(42, states, alphabetSize, edgeDensity, epsDensity, shape).generate();
+    }
+
+    // eliminateEps is destructive, every invocation needs its own object graph; trimming is left out so that
+    // elimination is measured alone, as in CoreEliminationBenchmark
+    @Setup(Level.Invocation)
+    public void rebuild() {
+        automaton = core.toAutomaton();
+        automaton.setTrimAfterElimination(false);
+    }
+
+    @Benchmark
+    public Automaton eliminateEps() {
+        automaton.eliminateEps(engine);
+        return automaton;
+    }
+}
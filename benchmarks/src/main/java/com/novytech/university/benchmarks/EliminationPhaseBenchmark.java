@@ -0,0 +1,55 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.EliminationPhase;
+import com.novytech.university.benchmarks.RandomAutomatonGenerator.EpsShape;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Each phase of the transitive engine on its own, through Automaton.runPhase
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EliminationPhaseBenchmark {
+    @Param({"1000"})
+    private int states;
+
+    @Param({"RANDOM", "CHAIN", "CYCLE", "THOMPSON"})
+    private EpsShape shape;
+
+    @Param({"ADD_INITIAL_STATES", "BUILD_EPSILON_CLOSURE", "MARK_NEW_FINAL_STATES",
+            "ADD_NEW_TRANSITIONS", "DISCARD_EPS_TRANSITIONS", "VERIFY"})
+    private EliminationPhase phase;
+
+    private CompactAutomaton core;
+    private Automaton automaton;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        core = new RandomAutomatonGenerator(42, states, 4, 2.0, 0.5, shape).generate();
+    }
+
+    // Brings a fresh automaton to the point right before the measured phase
+    @Setup(Level.Invocation)
+    public void prepare() {
+        automaton = core.toAutomaton();
+        for (EliminationPhase previous : EliminationPhase.values()) {
+            if (previous == phase) {
+                break;
+            }
+            automaton.runPhase(previous);
+        }
+    }
+
+    @Benchmark
+    public Automaton runPhase() {
+        automaton.runPhase(phase);
+        return automaton;
+    }
+}
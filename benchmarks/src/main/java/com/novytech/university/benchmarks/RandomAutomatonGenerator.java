@@ -0,0 +1,166 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import java.util.Random;
+
+// Seeded NFA generator; the same parameters always give the same automaton
+public class RandomAutomatonGenerator {
+    public enum EpsShape {
+        // EPS edges between uniformly random states
+        RANDOM,
+        // EPS edges only from a state to the next one, forming long acyclic chains
+        CHAIN,
+        // Chains whose last state links back to their first one
+        CYCLE,
+        // Random Thompson construction of concatenation, alternation and star; densities are ignored
+        THOMPSON
+    }
+
+    private final long seed;
+    private final int states;
+    private final int alphabetSize;
+    private final double edgeDensity;
+    private final double epsDensity;
+    private final EpsShape shape;
+
+    // Densities are average outgoing edges per state: edgeDensity for symbol edges, epsDensity for EPS edges
+    public RandomAutomatonGenerator(long seed, int states, int alphabetSize, double edgeDensity, double epsDensity, EpsShape shape) {
+        if (states < 2 || alphabetSize < 1) {
+            throw new IllegalArgumentException("Need at least 2 states and 1 symbol, got " + states + " and " + alphabetSize);
+        }
+        this.seed = seed;
+        this.states = states;
+        this.alphabetSize = alphabetSize;
+        this.edgeDensity = edgeDensity;
+        this.epsDensity = epsDensity;
+        this.shape = shape;
+    }
+
+    // Fresh mutable object graph, ready for a destructive eliminateEps
+    public Automaton generateAutomaton() {
+        return generate().toAutomaton();
+    }
+
+    public CompactAutomaton generate() {
+        Random random = new Random(seed);
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        int[] symbols = new int[alphabetSize];
+        for (int a = 0; a < alphabetSize; a++) {
+            symbols[a] = builder.symbol(new Symbol(symbolName(a)));
+        }
+
+        if (shape == EpsShape.THOMPSON) {
+            new Thompson(builder, random, symbols).generate(states);
+            return builder.build();
+        }
+
+        for (int s = 0; s < states; s++) {
+            builder.state("q" + s);
+        }
+        builder.initial(0);
+        for (int s = 0; s < states; s++) {
+            if (random.nextInt(10) == 0) {
+                builder.finalState(s);
+            }
+        }
+        builder.finalState(states - 1);
+
+        long symbolEdges = Math.round(states * edgeDensity);
+        for (long i = 0; i < symbolEdges; i++) {
+            builder.transition(random.nextInt(states), symbols[random.nextInt(alphabetSize)], random.nextInt(states));
+        }
+
+        long epsEdges = Math.round(states * epsDensity);
+        switch (shape) {
+            case RANDOM:
+                for (long i = 0; i < epsEdges; i++) {
+                    builder.transition(random.nextInt(states), CompactAutomaton.EPS, random.nextInt(states));
+                }
+                break;
+            case CHAIN:
+            case CYCLE:
+                // Chains of random length over consecutive states, until enough EPS edges exist
+                long added = 0;
+                while (added < epsEdges) {
+                    int start = random.nextInt(states - 1);
+                    int length = 1 + random.nextInt(Math.min(64, states - 1 - start));
+                    for (int s = start; s < start + length; s++) {
+                        builder.transition(s, CompactAutomaton.EPS, s + 1);
+                    }
+                    if (shape == EpsShape.CYCLE) {
+                        builder.transition(start + length, CompactAutomaton.EPS, start);
+                    }
+                    added += length;
+                }
+                break;
+            default:
+                break;
+        }
+        return builder.build();
+    }
+
+    // Single lowercase letters first, so small alphabets stay readable and matchable as chars
+    static String symbolName(int index) {
+        return index < 26 ? String.valueOf((char) ('a' + index)) : "s" + index;
+    }
+
+    private static final class Thompson {
+        private final CompactAutomaton.Builder builder;
+        private final Random random;
+        private final int[] symbols;
+        private int next;
+
+        private Thompson(CompactAutomaton.Builder builder, Random random, int[] symbols) {
+            this.builder = builder;
+            this.random = random;
+            this.symbols = symbols;
+        }
+
+        private void generate(int budget) {
+            int[] fragment = fragment(budget);
+            builder.initial(fragment[0]);
+            builder.finalState(fragment[1]);
+        }
+
+        // Returns {start, end} of a fragment with roughly budget states
+        private int[] fragment(int budget) {
+            int roll = random.nextInt(10);
+            if (budget < 4) {
+                int start = newState();
+                int end = newState();
+                builder.transition(start, symbols[random.nextInt(symbols.length)], end);
+                return new int[]{start, end};
+            }
+            if (roll < 5) {
+                int[] left = fragment(budget / 2);
+                int[] right = fragment(budget - budget / 2);
+                builder.transition(left[1], CompactAutomaton.EPS, right[0]);
+                return new int[]{left[0], right[1]};
+            }
+            int start = newState();
+            int end = newState();
+            if (roll < 8) {
+                int[] left = fragment((budget - 2) / 2);
+                int[] right = fragment(budget - 2 - (budget - 2) / 2);
+                builder.transition(start, CompactAutomaton.EPS, left[0]);
+                builder.transition(start, CompactAutomaton.EPS, right[0]);
+                builder.transition(left[1], CompactAutomaton.EPS, end);
+                builder.transition(right[1], CompactAutomaton.EPS, end);
+            } else {
+                int[] inner = fragment(budget - 2);
+                builder.transition(start, CompactAutomaton.EPS, inner[0]);
+                builder.transition(inner[1], CompactAutomaton.EPS, inner[0]);
+                builder.transition(inner[1], CompactAutomaton.EPS, end);
+                builder.transition(start, CompactAutomaton.EPS, end);
+            }
+            return new int[]{start, end};
+        }
+
+        private int newState() {
+            return builder.state("q" + next++);
+        }
+    }
+}
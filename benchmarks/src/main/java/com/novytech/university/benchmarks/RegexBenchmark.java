@@ -0,0 +1,95 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.regex.Regex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Regex pipeline (Thompson NFA, EPS elimination, minimized DFA) against java.util.regex on the same patterns.
+// NESTED is the backtracking worst case: (a|aa)*c on a run of a's with no c takes exponential time in java.util.regex.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexBenchmark {
+    // java.util.regex needs seconds per NESTED match well before this length doubles
+    private static final int NESTED_LENGTH = 28;
+
+    public enum Case {
+        EMAIL("[a-z0-9._]+@[a-z0-9-]+\\.(com|org|net)"),
+        LOG(".*(ERROR|WARN).*time(out|d out).*"),
+        NESTED("(a|aa)*c");
+
+        private final String pattern;
+
+        Case(String pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+    @Param({"EMAIL", "LOG", "NESTED"})
+    private Case pattern;
+
+    // Characters per input, except NESTED which is capped at NESTED_LENGTH
+    @Param({"28", "4096"})
+    private int inputLength;
+
+    private Regex regex;
+    private Pattern javaPattern;
+    private String input;
+
+    @Setup(Level.Trial)
+    public void compile() {
+        regex = Regex.compile(pattern.pattern);
+        javaPattern = Pattern.compile(pattern.pattern);
+        input = input(pattern, inputLength, 42);
+    }
+
+    @Benchmark
+    public Regex compileDfa() {
+        return Regex.compile(pattern.pattern);
+    }
+
+    @Benchmark
+    public Pattern compileJava() {
+        return Pattern.compile(pattern.pattern);
+    }
+
+    @Benchmark
+    public boolean matchDfa() {
+        return regex.matches(input);
+    }
+
+    @Benchmark
+    public boolean matchJava() {
+        return javaPattern.matcher(input).matches();
+    }
+
+    static String input(Case pattern, int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder input = new StringBuilder(length);
+        switch (pattern) {
+            case EMAIL:
+                while (input.length() < length - 12) {
+                    input.append((char) ('a' + random.nextInt(26)));
+                }
+                return input.append("@example.org").toString();
+            case LOG:
+                input.append("2024-01-01 ERROR ");
+                while (input.length() < length - 10) {
+                    input.append(random.nextInt(8) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+                }
+                return input.append(" timed out").toString();
+            default:
+                while (input.length() < Math.min(length, NESTED_LENGTH)) {
+                    input.append('a');
+                }
+                return input.toString();
+        }
+    }
+}
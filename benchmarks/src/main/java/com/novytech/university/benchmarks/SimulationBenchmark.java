@@ -0,0 +1,87 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+import com.novytech.university.matching.BitParallelNfa;
+import com.novytech.university.matching.CompiledDfa;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Bit-parallel simulation against the determinized path on (a|b)*a(a|b)^k, whose DFA has 2^(k+1) states
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"6", "14"})
+    private int k;
+
+    @Param({"65536"})
+    private int inputLength;
+
+    private CompactAutomaton nfa;
+    private BitParallelNfa bitParallel;
+    private CompiledDfa dfa;
+    private String input;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        nfa = kthFromEnd(k);
+        bitParallel = BitParallelNfa.of(nfa);
+        dfa = CompiledDfa.of(SuperAutomaton.fromAutomaton(nfa));
+        input = randomInput(42, inputLength);
+    }
+
+    @Benchmark
+    public BitParallelNfa buildBitParallel() {
+        return BitParallelNfa.of(nfa);
+    }
+
+    @Benchmark
+    public CompiledDfa buildDfa() {
+        return CompiledDfa.of(SuperAutomaton.fromAutomaton(nfa));
+    }
+
+    @Benchmark
+    public boolean matchBitParallel() {
+        return bitParallel.accepts(input);
+    }
+
+    @Benchmark
+    public boolean matchDfa() {
+        return dfa.accepts(input);
+    }
+
+    // EPS-free NFA with k + 2 states accepting words over {a, b} whose (k + 1)-th symbol from the end is a
+    static CompactAutomaton kthFromEnd(int k) {
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        int a = builder.symbol(new Symbol("a"));
+        int b = builder.symbol(new Symbol("b"));
+        int loop = builder.state("s");
+        builder.initial(loop).transition(loop, a, loop).transition(loop, b, loop);
+        int previous = builder.state("p0");
+        builder.transition(loop, a, previous);
+        for (int i = 1; i <= k; i++) {
+            int next = builder.state("p" + i);
+            builder.transition(previous, a, next).transition(previous, b, next);
+            previous = next;
+        }
+        builder.finalState(previous);
+        return builder.build();
+    }
+
+    static String randomInput(long seed, int length) {
+        Random random = new Random(seed);
+        StringBuilder input = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            input.append(random.nextBoolean() ? 'a' : 'b');
+        }
+        return input.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.novytech.university.benchmarks;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.matching.BitParallelNfa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Multi-word bit-parallel simulation, at sizes where the equivalent DFA cannot be built at all
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WideSimulationBenchmark {
+    @Param({"62", "126", "254", "1022"})
+    private int k;
+
+    @Param({"65536"})
+    private int inputLength;
+
+    private CompactAutomaton nfa;
+    private BitParallelNfa bitParallel;
+    private String input;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        nfa = SimulationBenchmark.kthFromEnd(k);
+        bitParallel = BitParallelNfa.of(nfa);
+        input = SimulationBenchmark.randomInput(42, inputLength);
+    }
+
+    @Benchmark
+    public BitParallelNfa build() {
+        return BitParallelNfa.of(nfa);
+    }
+
+    @Benchmark
+    public boolean match() {
+        return bitParallel.accepts(input);
+    }
+}
@@ -1,16 +1,83 @@
 package com.novytech.university;
 
 import com.novytech.university.automata.Automaton;
+import com.novytech.university.batch.AsyncSink;
+import com.novytech.university.batch.BatchPipeline;
+import com.novytech.university.batch.BatchSummary;
+import com.novytech.university.batch.ResultSink;
+import com.novytech.university.io.AutomatonLoader;
+import com.novytech.university.superautomata.Minimization;
 import com.novytech.university.superautomata.SuperAutomaton;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Main {
-    public static void main(String[] args) {
-        Automaton automaton = Automaton.fromSource();
+    // Optional argument: text or binary automaton file, see AutomatonLoader
+    // Batch mode: --batch <dir or files...> [--out <dir>] [--threads <n>] [--timeout-ms <ms>]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
+
+        Automaton automaton = args.length > 0
+                ? AutomatonLoader.load(Paths.get(args[0])).toAutomaton()
+                : Automaton.fromSource();
         automaton.show();
         automaton.eliminateEps();
+        System.out.println(automaton.getLastTrim());
         automaton.show();
 
         SuperAutomaton superAutomaton = SuperAutomaton.fromAutomaton(automaton);
         superAutomaton.show();
+
+        Minimization minimization = superAutomaton.minimize();
+        System.out.println(minimization);
+        minimization.getAutomaton().show();
+    }
+
+    // Exit code 1 when any job failed or timed out
+    private static int runBatch(String[] args) throws IOException, InterruptedException {
+        List<Path> inputs = new ArrayList<>();
+        Path out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 60_000;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out":
+                    out = Paths.get(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--timeout-ms":
+                    timeoutMillis = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Cannot run batch: no input directory or files given");
+        }
+
+        BatchSummary summary;
+        try (ResultSink sink = out != null ? AsyncSink.toDirectory(out) : AsyncSink.toStream(System.out, false);
+             BatchPipeline pipeline = new BatchPipeline(threads, timeoutMillis, sink)) {
+            for (Path input : inputs) {
+                if (Files.isDirectory(input)) {
+                    pipeline.submitDirectory(input);
+                } else {
+                    pipeline.submit(input);
+                }
+            }
+            summary = pipeline.awaitCompletion();
+        }
+        System.out.println(summary);
+        return summary.getFailed() + summary.getTimedOut() == 0 ? 0 : 1;
     }
 }
@@ -1,10 +1,17 @@
 package com.novytech.university.automata;
 
+import com.novytech.university.metrics.MetricsListener;
+import com.novytech.university.metrics.PhaseMetrics;
+import com.novytech.university.metrics.PhaseTimer;
+
+import java.io.PrintStream;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
 @Getter
 public class Automaton {
@@ -13,24 +20,198 @@ public class Automaton {
     private final List<Transition> transitions = new ArrayList<>();
     private SortedSet<State> initialStates = new TreeSet<>();
 
-    private Automaton() {}
+    // source -> activator -> targets, keyed by identity since State hash changes with its type
+    @Getter(AccessLevel.NONE)
+    private final Map<State, Map<Symbol, Set<State>>> transitionIndex = new IdentityHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter
+    private MetricsListener metricsListener = MetricsListener.NONE;
+
+    // eliminateEps ends with trim() unless turned off; lastTrim is its report, null when it did not run
+    @Getter(AccessLevel.NONE)
+    @Setter
+    private boolean trimAfterElimination = true;
+    private TrimReport lastTrim;
+
+    // Per-phase counters, only reported when a listener is set
+    @Getter(AccessLevel.NONE)
+    private int transitionsAdded;
+    @Getter(AccessLevel.NONE)
+    private int transitionsRemoved;
+    @Getter(AccessLevel.NONE)
+    private int queueHighWater;
+
+    Automaton() {}
 
     public void show() {
-        transitions.sort(Transition::compareTo);
-        System.out.println("---------- STATES ----------");
-        states.values().stream().map(State::toString).forEach(str -> System.out.print(str + " "));
-        System.out.println();
-        System.out.println("---------TRANSITION---------");
-        transitions.stream().map(Transition::toString).forEach(System.out::println);
-        System.out.println("----------------------------");
-        System.out.println();
+        show(System.out);
+    }
+
+    // Prints transitions in sorted order without reordering the automaton itself
+    public void show(PrintStream out) {
+        out.println("---------- STATES ----------");
+        states.values().stream().map(State::toString).forEach(str -> out.print(str + " "));
+        out.println();
+        out.println("---------TRANSITION---------");
+        transitions.stream().sorted().map(Transition::toString).forEach(out::println);
+        out.println("----------------------------");
+        out.println();
+    }
+
+    // Immutable copy for sharing between threads; later changes to this automaton do not affect it
+    public CompactAutomaton freeze() {
+        return CompactAutomaton.of(this);
     }
 
     public void eliminateEps() {
-        addInitialStates();
-        buildEpsilonTransitionsClosure();
-        markNewFinalStates();
-        addNewTransitions();
+        eliminateEps(EpsClosureEngine.TRANSITIVE);
+    }
+
+    public void eliminateEps(EpsClosureEngine engine) {
+        lastTrim = null;
+        if (engine == EpsClosureEngine.SCC_BITSET) {
+            if (metricsListener == MetricsListener.NONE) {
+                eliminateEpsByComponents();
+            } else {
+                measure(engine.name(), this::eliminateEpsByComponents);
+            }
+        } else {
+            for (EliminationPhase phase : EliminationPhase.values()) {
+                if (metricsListener == MetricsListener.NONE) {
+                    runPhase(phase);
+                } else {
+                    measure(phase.name(), () -> runPhase(phase));
+                }
+            }
+        }
+        if (trimAfterElimination) {
+            lastTrim = trim();
+        }
+    }
+
+    // Removes states unreachable from the initial states and states that cannot reach a final one, with their
+    // transitions: a forward BFS over outbound and a backward one over inbound, linear in states plus transitions
+    public TrimReport trim() {
+        TrimReport[] report = new TrimReport[1];
+        if (metricsListener == MetricsListener.NONE) {
+            report[0] = removeUselessStates();
+        } else {
+            measure("TRIM", () -> report[0] = removeUselessStates());
+        }
+        return report[0];
+    }
+
+    private TrimReport removeUselessStates() {
+        Set<State> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<State> queue = new ArrayDeque<>(initialStates);
+        reachable.addAll(initialStates);
+        while (!queue.isEmpty()) {
+            for (List<Transition> outbound : queue.poll().getOutbound().values()) {
+                for (Transition transition : outbound) {
+                    if (reachable.add(transition.getTarget())) {
+                        queue.add(transition.getTarget());
+                    }
+                }
+            }
+        }
+        Set<State> useful = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (State state : reachable) {
+            if (state.getType() == StateType.FINAL) {
+                useful.add(state);
+                queue.add(state);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (List<Transition> inbound : queue.poll().getInbound().values()) {
+                for (Transition transition : inbound) {
+                    if (reachable.contains(transition.getSource()) && useful.add(transition.getSource())) {
+                        queue.add(transition.getSource());
+                    }
+                }
+            }
+        }
+        if (useful.size() == states.size()) {
+            return new TrimReport(0, 0);
+        }
+
+        int transitionsBefore = transitions.size();
+        transitions.removeIf(transition -> {
+            if (useful.contains(transition.getSource()) && useful.contains(transition.getTarget())) {
+                return false;
+            }
+            transition.getSource().removeOutboundTransition(transition);
+            return true;
+        });
+        transitionsRemoved += transitionsBefore - transitions.size();
+        transitionIndex.keySet().removeIf(source -> !useful.contains(source));
+        for (Map<Symbol, Set<State>> targetsBySymbol : transitionIndex.values()) {
+            for (Set<State> targets : targetsBySymbol.values()) {
+                targets.removeIf(target -> !useful.contains(target));
+            }
+        }
+        int statesBefore = states.size();
+        states.values().removeIf(state -> !useful.contains(state));
+        initialStates.removeIf(state -> !useful.contains(state));
+        return new TrimReport(statesBefore - states.size(), transitionsBefore - transitions.size());
+    }
+
+    private void measure(String phase, Runnable body) {
+        transitionsAdded = 0;
+        transitionsRemoved = 0;
+        queueHighWater = 0;
+        PhaseTimer timer = PhaseTimer.start();
+        body.run();
+        long wallNanos = timer.elapsedNanos();
+        metricsListener.onPhase(new PhaseMetrics(phase, wallNanos, timer.allocatedBytes(),
+                queueHighWater, transitionsAdded, transitionsRemoved, 0));
+    }
+
+    // One phase of the transitive elimination, public so benchmarks can time each on its own. Phases are only
+    // meaningful in EliminationPhase order on a fresh automaton; eliminateEps runs them all.
+    public void runPhase(EliminationPhase phase) {
+        switch (phase) {
+            case ADD_INITIAL_STATES:
+                addInitialStates();
+                break;
+            case BUILD_EPSILON_CLOSURE:
+                buildEpsilonTransitionsClosure();
+                break;
+            case MARK_NEW_FINAL_STATES:
+                markNewFinalStates();
+                break;
+            case ADD_NEW_TRANSITIONS:
+                addNewTransitions();
+                break;
+            case DISCARD_EPS_TRANSITIONS:
+                discardEpsTransitions();
+                break;
+            case VERIFY:
+                verify();
+                break;
+        }
+    }
+
+    // Same result as the transitive engine, computed on the compact core without materializing any intermediate EPS transition
+    private void eliminateEpsByComponents() {
+        CompactAutomaton eliminated = CompactAutomaton.of(this).eliminateEps();
+        State[] view = states.values().toArray(new State[0]);
+
+        for (int i = 0; i < eliminated.initialStateCount(); i++) {
+            initialStates.add(view[eliminated.initialState(i)]);
+        }
+        for (int s = 0; s < view.length; s++) {
+            if (eliminated.isFinal(s)) {
+                view[s].setType(StateType.FINAL);
+                view[s].getPatterns().or(eliminated.patterns(s));
+            }
+        }
+        for (int s = 0; s < view.length; s++) {
+            for (int e = eliminated.outStart(s); e < eliminated.outEnd(s); e++) {
+                addTransition(view[s], eliminated.symbol(eliminated.outSymbol(e)), view[eliminated.outTarget(e)]);
+            }
+        }
+
         discardEpsTransitions();
         verify();
     }
@@ -42,6 +223,7 @@ public class Automaton {
         stq.addAll(initialStates);
 
         while (!stq.isEmpty()) {
+            queueHighWater = Math.max(queueHighWater, stq.size());
             State s = stq.remove();
             List<Transition> outbound = s.getOutbound().get(Symbol.EPS);
 
@@ -61,6 +243,7 @@ public class Automaton {
     private void buildEpsilonTransitionsClosure() {
         Queue<Transition> epsTransitions = new LinkedList<>(listEpsTransitions());
         while (!epsTransitions.isEmpty()) {
+            queueHighWater = Math.max(queueHighWater, epsTransitions.size());
             Transition epsTransition = epsTransitions.remove();
             State sourceState = epsTransition.getSource();
             State targetState = epsTransition.getTarget();
@@ -89,6 +272,7 @@ public class Automaton {
         for (Transition t : listEpsTransitions()) {
             if (t.getTarget().getType().equals(StateType.FINAL)) {
                 t.getSource().setType(StateType.FINAL);
+                t.getSource().getPatterns().or(t.getTarget().getPatterns());
             }
         }
     }
@@ -98,6 +282,7 @@ public class Automaton {
         Queue<Transition> epsTransitions = new LinkedList<>(listEpsTransitions());
 
         while (!epsTransitions.isEmpty()) {
+            queueHighWater = Math.max(queueHighWater, epsTransitions.size());
             Transition epsTransition = epsTransitions.remove();
 
             State src = epsTransition.getSource();
@@ -127,11 +312,14 @@ public class Automaton {
 
     // Discard all existing eps transitions
     private void discardEpsTransitions() {
-        for (Transition transition : new LinkedList<>(transitions)) {
-            if (transition.getActivator().equals(Symbol.EPS)) {
-                transitions.remove(transition);
-                transition.getSource().removeOutboundTransition(transition);
-            }
+        int before = transitions.size();
+        transitions.removeIf(transition -> transition.getActivator().equals(Symbol.EPS));
+        transitionsRemoved += before - transitions.size();
+        for (State state : states.values()) {
+            state.clearTransitions(Symbol.EPS);
+        }
+        for (Map<Symbol, Set<State>> targetsBySymbol : transitionIndex.values()) {
+            targetsBySymbol.remove(Symbol.EPS);
         }
     }
 
@@ -155,21 +343,34 @@ public class Automaton {
     }
 
     // HELPERS FOR AUTOMATA MODIFICATION
-    private Transition addTransition(final State source, final Symbol activator, final State target) {
+    Transition addTransition(final State source, final Symbol activator, final State target) {
         // Check if exists
-        for (Transition trans: transitions) {
-            if (trans.getSource().equals(source) && trans.getActivator().equals(activator) && trans.getTarget().equals(target)) {
-                return null;
-            }
+        Set<State> targets = transitionIndex
+                .computeIfAbsent(source, s -> new HashMap<>())
+                .computeIfAbsent(activator, a -> Collections.newSetFromMap(new IdentityHashMap<>()));
+        if (!targets.add(target)) {
+            return null;
         }
         // Create if not
         Transition t = new Transition(source, activator, target);
         source.addOutboundTransition(t);
         transitions.add(t);
+        transitionsAdded++;
         return t;
     }
 
     // FACTORIES
+    // Union NFA whose final states are tagged with the index of the automaton they come from
+    public static Automaton union(List<Automaton> patterns) {
+        List<CompactAutomaton> parts = new ArrayList<>();
+        int[] patternIds = new int[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            parts.add(CompactAutomaton.of(patterns.get(i)));
+            patternIds[i] = i;
+        }
+        return CompactAutomaton.union(parts, patternIds).toAutomaton();
+    }
+
     public static Automaton fromSource() {
         return AutomatonFactory.fromSource1();
     }
@@ -0,0 +1,159 @@
+package com.novytech.university.automata;
+
+import java.util.*;
+
+// Minterms of a set of symbols: the chars they cover are split into the coarsest classes that every symbol
+// either contains whole or misses, so symbols rewritten over the classes never overlap. Each class is a range
+// symbol (or a plain one for a single char). Symbols covering no chars, EPS included, are their own class.
+public final class CharPartition {
+    private final List<Symbol> classes;
+    private final Map<Symbol, List<Symbol>> classesOf;
+
+    private CharPartition(List<Symbol> classes, Map<Symbol, List<Symbol>> classesOf) {
+        this.classes = classes;
+        this.classesOf = classesOf;
+    }
+
+    public static CharPartition of(Collection<Symbol> symbols) {
+        List<Symbol> charSymbols = new ArrayList<>();
+        Map<Symbol, List<Symbol>> classesOf = new LinkedHashMap<>();
+        for (Symbol symbol : new LinkedHashSet<>(symbols)) {
+            if (symbol.charRanges().length == 0) {
+                classesOf.put(symbol, Collections.singletonList(symbol));
+            } else {
+                charSymbols.add(symbol);
+                classesOf.put(symbol, new ArrayList<>());
+            }
+        }
+
+        // Elementary intervals [bounds[i], bounds[i + 1]) lie between consecutive range boundaries
+        TreeSet<Integer> boundarySet = new TreeSet<>();
+        for (Symbol symbol : charSymbols) {
+            int[] ranges = symbol.charRanges();
+            for (int i = 0; i < ranges.length; i += 2) {
+                boundarySet.add(ranges[i]);
+                boundarySet.add(ranges[i + 1] + 1);
+            }
+        }
+        int[] bounds = new int[boundarySet.size()];
+        int b = 0;
+        for (int bound : boundarySet) {
+            bounds[b++] = bound;
+        }
+        BitSet[] covering = new BitSet[Math.max(bounds.length - 1, 0)];
+        for (int s = 0; s < charSymbols.size(); s++) {
+            int[] ranges = charSymbols.get(s).charRanges();
+            for (int i = 0; i < ranges.length; i += 2) {
+                int last = Arrays.binarySearch(bounds, ranges[i + 1] + 1);
+                for (int e = Arrays.binarySearch(bounds, ranges[i]); e < last; e++) {
+                    if (covering[e] == null) {
+                        covering[e] = new BitSet();
+                    }
+                    covering[e].set(s);
+                }
+            }
+        }
+
+        // Intervals covered by the same symbols form one class
+        Map<BitSet, List<Integer>> intervals = new LinkedHashMap<>();
+        for (int e = 0; e < covering.length; e++) {
+            if (covering[e] != null) {
+                intervals.computeIfAbsent(covering[e], k -> new ArrayList<>()).add(e);
+            }
+        }
+        List<Symbol> classes = new ArrayList<>();
+        for (Map.Entry<BitSet, List<Integer>> entry : intervals.entrySet()) {
+            List<Integer> elementary = entry.getValue();
+            int[] ranges = new int[elementary.size() * 2];
+            for (int i = 0; i < elementary.size(); i++) {
+                ranges[2 * i] = bounds[elementary.get(i)];
+                ranges[2 * i + 1] = bounds[elementary.get(i) + 1] - 1;
+            }
+            Symbol symbolClass = Symbol.ranges(ranges);
+            classes.add(symbolClass);
+            BitSet covered = entry.getKey();
+            for (int s = covered.nextSetBit(0); s >= 0; s = covered.nextSetBit(s + 1)) {
+                classesOf.get(charSymbols.get(s)).add(symbolClass);
+            }
+        }
+        for (Symbol symbol : classesOf.keySet()) {
+            if (symbol.charRanges().length == 0 && !symbol.equals(Symbol.EPS)) {
+                classes.add(symbol);
+            }
+        }
+        return new CharPartition(classes, classesOf);
+    }
+
+    // The new alphabet without EPS
+    public List<Symbol> classes() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    public List<Symbol> classesOf(Symbol symbol) {
+        List<Symbol> result = classesOf.get(symbol);
+        if (result == null) {
+            throw new IllegalArgumentException("Cannot split symbol " + symbol.getSymbol() + ": not part of the partition");
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // Index of the class holding every char of symbol, -1 when symbol shares no char with any class. Classes must
+    // be disjoint, as those of a partitioned alphabet are. Determinization runs over classes, so an original
+    // symbol split across several of them has no single index and is rejected rather than read as unknown.
+    public static int classIndex(Symbol[] classes, Symbol symbol) {
+        int[] chars = symbol.charRanges();
+        if (chars.length == 0) {
+            return -1;
+        }
+        int found = -1;
+        for (int i = 0; i < classes.length; i++) {
+            int[] classChars = classes[i].charRanges();
+            if (!intersects(classChars, chars)) {
+                continue;
+            }
+            if (found >= 0 || !contains(classChars, chars)) {
+                throw new IllegalArgumentException("Cannot look up symbol " + symbol.getSymbol()
+                        + ": its chars span several character classes, match the chars instead");
+            }
+            found = i;
+        }
+        return found;
+    }
+
+    private static boolean intersects(int[] ranges, int[] others) {
+        for (int i = 0, j = 0; i < ranges.length && j < others.length; ) {
+            if (ranges[i + 1] < others[j]) {
+                i += 2;
+            } else if (others[j + 1] < ranges[i]) {
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ranges are merged, so each inner range has to fit into a single outer one
+    private static boolean contains(int[] outer, int[] inner) {
+        int i = 0;
+        for (int j = 0; j < inner.length; j += 2) {
+            while (i < outer.length && outer[i + 1] < inner[j]) {
+                i += 2;
+            }
+            if (i == outer.length || outer[i] > inner[j] || outer[i + 1] < inner[j + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True when every symbol already is its own class, so rewriting over the partition changes nothing
+    public boolean isIdentity() {
+        for (Map.Entry<Symbol, List<Symbol>> entry : classesOf.entrySet()) {
+            if (entry.getValue().size() != 1 || !entry.getValue().get(0).equals(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.novytech.university.automata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Char lookup for an alphabet: a dense array for chars below DENSE_LIMIT and binary search over the ranges
+// above it, so a class covering all of Unicode costs a few intervals instead of a 64K-entry table.
+// Symbols are expected not to overlap, see CharPartition.
+public final class CharTable {
+    public static final int DENSE_LIMIT = 0x800;
+
+    private final int missing;
+    private final int[] dense;
+    // Above DENSE_LIMIT: value of [starts[i], ends[i]] is values[i]
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] values;
+    private final int limit;
+
+    private CharTable(int missing, int[] dense, int[] starts, int[] ends, int[] values, int limit) {
+        this.missing = missing;
+        this.dense = dense;
+        this.starts = starts;
+        this.ends = ends;
+        this.values = values;
+        this.limit = limit;
+    }
+
+    // Chars of symbols[a] map to values[a], all others to missing
+    public static CharTable of(Symbol[] symbols, int[] values, int missing) {
+        int limit = 0;
+        for (Symbol symbol : symbols) {
+            int[] ranges = symbol.charRanges();
+            if (ranges.length > 0) {
+                limit = Math.max(limit, ranges[ranges.length - 1] + 1);
+            }
+        }
+
+        int[] dense = new int[Math.min(limit, DENSE_LIMIT)];
+        Arrays.fill(dense, missing);
+        List<int[]> sparse = new ArrayList<>();
+        for (int a = 0; a < symbols.length; a++) {
+            int[] ranges = symbols[a].charRanges();
+            for (int i = 0; i < ranges.length; i += 2) {
+                for (int c = ranges[i]; c <= ranges[i + 1] && c < DENSE_LIMIT; c++) {
+                    dense[c] = values[a];
+                }
+                if (ranges[i + 1] >= DENSE_LIMIT) {
+                    sparse.add(new int[]{Math.max(ranges[i], DENSE_LIMIT), ranges[i + 1], values[a]});
+                }
+            }
+        }
+
+        sparse.sort(Comparator.comparingInt(range -> range[0]));
+        int[] starts = new int[sparse.size()];
+        int[] ends = new int[sparse.size()];
+        int[] rangeValues = new int[sparse.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = sparse.get(i)[0];
+            ends[i] = sparse.get(i)[1];
+            rangeValues[i] = sparse.get(i)[2];
+        }
+        return new CharTable(missing, dense, starts, ends, rangeValues, limit);
+    }
+
+    public int get(char c) {
+        return c < dense.length ? dense[c] : sparse(c);
+    }
+
+    // Lookup for chars at or above the dense part, for callers that index dense() themselves
+    public int sparse(char c) {
+        int i = Arrays.binarySearch(starts, c);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i >= 0 && c <= ends[i] ? values[i] : missing;
+    }
+
+    // Shared, not copied: callers read it in their hot loops and must not write it
+    public int[] dense() {
+        return dense;
+    }
+
+    // Chars at or above this limit are missing
+    public int limit() {
+        return limit;
+    }
+}
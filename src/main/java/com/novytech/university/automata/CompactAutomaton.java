@@ -0,0 +1,599 @@
+package com.novytech.university.automata;
+
+import java.util.*;
+
+// Immutable integer core of an automaton: states and symbols are interned to dense ids and
+// edges live in compressed-sparse-row arrays, sorted by (symbol, peer) inside every state row.
+// All arrays are final and never written after construction, so instances can be shared between threads.
+public final class CompactAutomaton {
+    public static final int EPS = 0;
+
+    private final String[] stateNames;
+    private final Symbol[] symbols;
+    private final BitSet finals;
+    private final int[] initialStates;
+    // Pattern ids accepted by each final state, null when nothing is tagged
+    private final BitSet[] patterns;
+
+    private final int[] outOffsets;
+    private final int[] outSymbols;
+    private final int[] outTargets;
+
+    private final int[] inOffsets;
+    private final int[] inSymbols;
+    private final int[] inSources;
+
+    // Built on first lookup and published whole through the volatile write
+    private volatile Map<String, Integer> stateIds;
+    private volatile Map<Symbol, Integer> symbolIds;
+
+    private CompactAutomaton(String[] stateNames, Symbol[] symbols, BitSet finals, int[] initialStates, BitSet[] patterns,
+                             int[] outOffsets, int[] outSymbols, int[] outTargets,
+                             int[] inOffsets, int[] inSymbols, int[] inSources) {
+        this.stateNames = stateNames;
+        this.symbols = symbols;
+        this.finals = finals;
+        this.initialStates = initialStates;
+        this.patterns = patterns;
+        this.outOffsets = outOffsets;
+        this.outSymbols = outSymbols;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSymbols = inSymbols;
+        this.inSources = inSources;
+    }
+
+    public int stateCount() {
+        return stateNames.length;
+    }
+
+    public int symbolCount() {
+        return symbols.length;
+    }
+
+    public int transitionCount() {
+        return outTargets.length;
+    }
+
+    public String stateName(int state) {
+        return stateNames[state];
+    }
+
+    public Symbol symbol(int symbol) {
+        return symbols[symbol];
+    }
+
+    public boolean isFinal(int state) {
+        return finals.get(state);
+    }
+
+    public boolean isTagged() {
+        return patterns != null;
+    }
+
+    // Copy of the pattern ids accepted in state, empty when untagged
+    public BitSet patterns(int state) {
+        return patterns == null || patterns[state] == null ? new BitSet() : (BitSet) patterns[state].clone();
+    }
+
+    public int[] initialStates() {
+        return initialStates.clone();
+    }
+
+    public int initialStateCount() {
+        return initialStates.length;
+    }
+
+    public int initialState(int index) {
+        return initialStates[index];
+    }
+
+    // -1 when unknown
+    public int stateId(String name) {
+        if (stateIds == null) {
+            Map<String, Integer> ids = new HashMap<>(stateNames.length * 2);
+            for (int i = 0; i < stateNames.length; i++) {
+                ids.put(stateNames[i], i);
+            }
+            stateIds = ids;
+        }
+        Integer id = stateIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    // -1 when unknown
+    public int symbolId(Symbol symbol) {
+        if (symbolIds == null) {
+            Map<Symbol, Integer> ids = new HashMap<>(symbols.length * 2);
+            for (int i = 0; i < symbols.length; i++) {
+                ids.put(symbols[i], i);
+            }
+            symbolIds = ids;
+        }
+        Integer id = symbolIds.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    // OUTBOUND ROWS: edges of state are [outStart(state), outEnd(state)), a symbol run is [outStart(state, symbol), outEnd(state, symbol))
+    public int outStart(int state) {
+        return outOffsets[state];
+    }
+
+    public int outEnd(int state) {
+        return outOffsets[state + 1];
+    }
+
+    public int outStart(int state, int symbol) {
+        return lowerBound(outSymbols, outOffsets[state], outOffsets[state + 1], symbol);
+    }
+
+    public int outEnd(int state, int symbol) {
+        return lowerBound(outSymbols, outOffsets[state], outOffsets[state + 1], symbol + 1);
+    }
+
+    public int outSymbol(int edge) {
+        return outSymbols[edge];
+    }
+
+    public int outTarget(int edge) {
+        return outTargets[edge];
+    }
+
+    // INBOUND ROWS: same layout, keyed by target
+    public int inStart(int state) {
+        return inOffsets[state];
+    }
+
+    public int inEnd(int state) {
+        return inOffsets[state + 1];
+    }
+
+    public int inStart(int state, int symbol) {
+        return lowerBound(inSymbols, inOffsets[state], inOffsets[state + 1], symbol);
+    }
+
+    public int inEnd(int state, int symbol) {
+        return lowerBound(inSymbols, inOffsets[state], inOffsets[state + 1], symbol + 1);
+    }
+
+    public int inSymbol(int edge) {
+        return inSymbols[edge];
+    }
+
+    public int inSource(int edge) {
+        return inSources[edge];
+    }
+
+    private static int lowerBound(int[] values, int from, int to, int key) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Equivalent of Automaton.eliminateEps with the SCC engine; returns a new core without EPS edges
+    public CompactAutomaton eliminateEps() {
+        int n = stateCount();
+        int[][] epsSuccessors = new int[n][];
+        for (int s = 0; s < n; s++) {
+            int from = outStart(s, EPS);
+            epsSuccessors[s] = Arrays.copyOfRange(outTargets, from, outEnd(s, EPS));
+        }
+        EpsClosure closure = new EpsClosure(epsSuccessors);
+
+        Builder builder = new Builder(this);
+
+        for (int initial : initialStates) {
+            BitSet row = closure.row(initial);
+            for (int i = row.nextSetBit(0); i >= 0; i = row.nextSetBit(i + 1)) {
+                builder.initial(i);
+            }
+        }
+
+        for (int s = 0; s < n; s++) {
+            BitSet row = closure.row(s);
+            if (row.intersects(finals)) {
+                builder.finalState(s);
+                if (patterns != null) {
+                    for (int f = row.nextSetBit(0); f >= 0; f = row.nextSetBit(f + 1)) {
+                        if (patterns[f] != null) {
+                            builder.patterns(s, patterns[f]);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int s = 0; s < n; s++) {
+            for (int e = outEnd(s, EPS); e < outEnd(s); e++) {
+                BitSet row = closure.row(outTargets[e]);
+                for (int i = row.nextSetBit(0); i >= 0; i = row.nextSetBit(i + 1)) {
+                    builder.transition(s, outSymbols[e], i);
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    // Keeps only states reachable from an initial state that can also reach a final one, in the same order;
+    // linear in states plus transitions. This core when nothing is removed.
+    public CompactAutomaton trim() {
+        int n = stateCount();
+        BitSet reachable = new BitSet(n);
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int initial : initialStates) {
+            if (!reachable.get(initial)) {
+                reachable.set(initial);
+                queue[tail++] = initial;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int e = outOffsets[queue[head]]; e < outOffsets[queue[head] + 1]; e++) {
+                if (!reachable.get(outTargets[e])) {
+                    reachable.set(outTargets[e]);
+                    queue[tail++] = outTargets[e];
+                }
+            }
+        }
+        BitSet useful = new BitSet(n);
+        tail = 0;
+        for (int s = finals.nextSetBit(0); s >= 0; s = finals.nextSetBit(s + 1)) {
+            if (reachable.get(s)) {
+                useful.set(s);
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int e = inOffsets[queue[head]]; e < inOffsets[queue[head] + 1]; e++) {
+                if (reachable.get(inSources[e]) && !useful.get(inSources[e])) {
+                    useful.set(inSources[e]);
+                    queue[tail++] = inSources[e];
+                }
+            }
+        }
+        if (useful.cardinality() == n) {
+            return this;
+        }
+
+        Builder builder = builder();
+        for (Symbol symbol : symbols) {
+            builder.symbol(symbol);
+        }
+        int[] ids = new int[n];
+        for (int s = 0; s < n; s++) {
+            ids[s] = useful.get(s) ? builder.state(stateNames[s]) : -1;
+        }
+        for (int initial : initialStates) {
+            if (useful.get(initial)) {
+                builder.initial(ids[initial]);
+            }
+        }
+        for (int s = useful.nextSetBit(0); s >= 0; s = useful.nextSetBit(s + 1)) {
+            if (finals.get(s)) {
+                builder.finalState(ids[s]);
+                if (patterns != null && patterns[s] != null) {
+                    builder.patterns(ids[s], patterns[s]);
+                }
+            }
+            for (int e = outOffsets[s]; e < outOffsets[s + 1]; e++) {
+                if (useful.get(outTargets[e])) {
+                    builder.transition(ids[s], outSymbols[e], ids[outTargets[e]]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Same automaton over the minterms of its own symbols, see CharPartition; this core when they never overlap
+    public CompactAutomaton partitioned() {
+        if (Arrays.stream(symbols).noneMatch(Symbol::isRange)) {
+            return this;
+        }
+        return partitioned(CharPartition.of(Arrays.asList(symbols)));
+    }
+
+    // Every edge on a symbol becomes one edge per class of it in partition; state ids are kept
+    public CompactAutomaton partitioned(CharPartition partition) {
+        int[][] classes = new int[symbols.length][];
+        Builder builder = builder();
+        boolean identity = true;
+        for (int a = 0; a < symbols.length; a++) {
+            List<Symbol> split = partition.classesOf(symbols[a]);
+            identity &= split.size() == 1 && split.get(0).equals(symbols[a]);
+            classes[a] = new int[split.size()];
+            for (int i = 0; i < split.size(); i++) {
+                classes[a][i] = builder.symbol(split.get(i));
+            }
+        }
+        if (identity) {
+            return this;
+        }
+
+        for (String name : stateNames) {
+            builder.state(name);
+        }
+        for (int initial : initialStates) {
+            builder.initial(initial);
+        }
+        for (int s = finals.nextSetBit(0); s >= 0; s = finals.nextSetBit(s + 1)) {
+            builder.finalState(s);
+            if (patterns != null && patterns[s] != null) {
+                builder.patterns(s, patterns[s]);
+            }
+        }
+        for (int s = 0; s < stateCount(); s++) {
+            for (int e = outOffsets[s]; e < outOffsets[s + 1]; e++) {
+                for (int symbolClass : classes[outSymbols[e]]) {
+                    builder.transition(s, symbolClass, outTargets[e]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // FACTORIES
+    public static CompactAutomaton of(Automaton automaton) {
+        Builder builder = builder();
+        for (State state : automaton.getStates().values()) {
+            int id = builder.state(state.getName());
+            if (state.getType() == StateType.FINAL) {
+                builder.finalState(id);
+                builder.patterns(id, state.getPatterns());
+            }
+        }
+        for (Symbol symbol : automaton.getAlphabet()) {
+            builder.symbol(symbol);
+        }
+        for (State state : automaton.getInitialStates()) {
+            builder.initial(builder.state(state.getName()));
+        }
+        for (Transition t : automaton.getTransitions()) {
+            builder.transition(builder.state(t.getSource().getName()), builder.symbol(t.getActivator()), builder.state(t.getTarget().getName()));
+        }
+        return builder.build();
+    }
+
+    // Object graph view over this core, for callers working with State and Transition
+    public Automaton toAutomaton() {
+        Automaton automaton = new Automaton();
+        State[] view = new State[stateCount()];
+        for (int s = 0; s < view.length; s++) {
+            view[s] = new State(stateNames[s], finals.get(s) ? StateType.FINAL : StateType.COMMON);
+            if (patterns != null && patterns[s] != null) {
+                view[s].getPatterns().or(patterns[s]);
+            }
+            automaton.getStates().put(view[s].getName(), view[s]);
+        }
+        for (int a = EPS + 1; a < symbols.length; a++) {
+            automaton.getAlphabet().add(symbols[a]);
+        }
+        for (int initial : initialStates) {
+            automaton.getInitialStates().add(view[initial]);
+        }
+        for (int s = 0; s < view.length; s++) {
+            for (int e = outOffsets[s]; e < outOffsets[s + 1]; e++) {
+                automaton.addTransition(view[s], symbols[outSymbols[e]], view[outTargets[e]]);
+            }
+        }
+        return automaton;
+    }
+
+    // One fresh initial state with EPS edges into every part; final states of part i accept patternIds[i].
+    // State names get a "<i>." prefix so parts never collide, symbols are shared by equality.
+    public static CompactAutomaton union(List<CompactAutomaton> parts, int[] patternIds) {
+        if (parts.size() != patternIds.length) {
+            throw new IllegalArgumentException("Cannot build union: " + parts.size() + " parts but " + patternIds.length + " pattern ids");
+        }
+        Builder builder = builder();
+        int start = builder.state("start");
+        builder.initial(start);
+        for (int i = 0; i < parts.size(); i++) {
+            CompactAutomaton part = parts.get(i);
+            int[] states = new int[part.stateCount()];
+            for (int s = 0; s < states.length; s++) {
+                states[s] = builder.state(i + "." + part.stateName(s));
+                if (part.isFinal(s)) {
+                    builder.pattern(states[s], patternIds[i]);
+                }
+            }
+            int[] symbols = new int[part.symbolCount()];
+            for (int a = 0; a < symbols.length; a++) {
+                symbols[a] = builder.symbol(part.symbol(a));
+            }
+            for (int initial : part.initialStates) {
+                builder.transition(start, EPS, states[initial]);
+            }
+            for (int s = 0; s < states.length; s++) {
+                for (int e = part.outStart(s); e < part.outEnd(s); e++) {
+                    builder.transition(states[s], symbols[part.outSymbol(e)], states[part.outTarget(e)]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final List<String> stateNames = new ArrayList<>();
+        private final Map<String, Integer> stateIds = new HashMap<>();
+        private final List<Symbol> symbols = new ArrayList<>();
+        private final Map<Symbol, Integer> symbolIds = new HashMap<>();
+        private final BitSet finals = new BitSet();
+        private final BitSet initials = new BitSet();
+        private final Map<Integer, BitSet> patterns = new HashMap<>();
+
+        private int[] edges = new int[48];
+        private int edgeCount;
+
+        private Builder() {
+            symbol(Symbol.EPS);
+        }
+
+        // Same states and symbols as the given core, no transitions
+        private Builder(CompactAutomaton base) {
+            for (String name : base.stateNames) {
+                stateIds.put(name, stateNames.size());
+                stateNames.add(name);
+            }
+            for (Symbol symbol : base.symbols) {
+                symbolIds.put(symbol, symbols.size());
+                symbols.add(symbol);
+            }
+        }
+
+        public int state(String name) {
+            Integer id = stateIds.get(name);
+            if (id == null) {
+                id = stateNames.size();
+                stateIds.put(name, id);
+                stateNames.add(name);
+            }
+            return id;
+        }
+
+        public int symbol(Symbol symbol) {
+            Integer id = symbolIds.get(symbol);
+            if (id == null) {
+                id = symbols.size();
+                symbolIds.put(symbol, id);
+                symbols.add(symbol);
+            }
+            return id;
+        }
+
+        public Builder initial(int state) {
+            checkState(state);
+            initials.set(state);
+            return this;
+        }
+
+        public Builder finalState(int state) {
+            checkState(state);
+            finals.set(state);
+            return this;
+        }
+
+        // Marks state final and accepting for the given pattern
+        public Builder pattern(int state, int pattern) {
+            finalState(state);
+            patterns.computeIfAbsent(state, s -> new BitSet()).set(pattern);
+            return this;
+        }
+
+        private void patterns(int state, BitSet ids) {
+            if (!ids.isEmpty()) {
+                patterns.computeIfAbsent(state, s -> new BitSet()).or(ids);
+            }
+        }
+
+        public Builder transition(int source, int symbol, int target) {
+            checkState(source);
+            checkState(target);
+            if (symbol < 0 || symbol >= symbols.size()) {
+                throw new IllegalArgumentException("Unknown symbol id " + symbol);
+            }
+            if (edgeCount * 3 == edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+            }
+            edges[edgeCount * 3] = source;
+            edges[edgeCount * 3 + 1] = symbol;
+            edges[edgeCount * 3 + 2] = target;
+            edgeCount++;
+            return this;
+        }
+
+        private void checkState(int state) {
+            if (state < 0 || state >= stateNames.size()) {
+                throw new IllegalArgumentException("Unknown state id " + state);
+            }
+        }
+
+        public CompactAutomaton build() {
+            int n = stateNames.size();
+
+            int[] outOffsets = new int[n + 1];
+            int[] outSymbols = new int[edgeCount];
+            int[] outTargets = new int[edgeCount];
+            int outCount = groupRows(0, 2, outOffsets, outSymbols, outTargets);
+
+            int[] inOffsets = new int[n + 1];
+            int[] inSymbols = new int[outCount];
+            int[] inSources = new int[outCount];
+            // Inbound rows are derived from the already deduplicated outbound rows
+            int[] deduplicated = new int[outCount * 3];
+            for (int s = 0, e = 0; s < n; s++) {
+                for (int i = outOffsets[s]; i < outOffsets[s + 1]; i++, e++) {
+                    deduplicated[e * 3] = s;
+                    deduplicated[e * 3 + 1] = outSymbols[i];
+                    deduplicated[e * 3 + 2] = outTargets[i];
+                }
+            }
+            edges = deduplicated;
+            edgeCount = outCount;
+            groupRows(2, 0, inOffsets, inSymbols, inSources);
+
+            BitSet[] statePatterns = null;
+            if (!patterns.isEmpty()) {
+                statePatterns = new BitSet[n];
+                for (Map.Entry<Integer, BitSet> tagged : patterns.entrySet()) {
+                    statePatterns[tagged.getKey()] = (BitSet) tagged.getValue().clone();
+                }
+            }
+
+            return new CompactAutomaton(
+                    stateNames.toArray(new String[0]),
+                    symbols.toArray(new Symbol[0]),
+                    (BitSet) finals.clone(),
+                    initials.stream().toArray(),
+                    statePatterns,
+                    outOffsets, Arrays.copyOf(outSymbols, outCount), Arrays.copyOf(outTargets, outCount),
+                    inOffsets, inSymbols, inSources);
+        }
+
+        // Counting sort of edges by row, then by (symbol, peer) inside each row; drops duplicates
+        private int groupRows(int rowField, int peerField, int[] offsets, int[] rowSymbols, int[] rowPeers) {
+            int n = offsets.length - 1;
+            int[] start = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                start[edges[e * 3 + rowField] + 1]++;
+            }
+            for (int s = 0; s < n; s++) {
+                start[s + 1] += start[s];
+            }
+            long[] packed = new long[edgeCount];
+            int[] fill = Arrays.copyOf(start, n);
+            for (int e = 0; e < edgeCount; e++) {
+                int row = edges[e * 3 + rowField];
+                packed[fill[row]++] = ((long) edges[e * 3 + 1] << 32) | edges[e * 3 + peerField];
+            }
+
+            int count = 0;
+            for (int s = 0; s < n; s++) {
+                offsets[s] = count;
+                Arrays.sort(packed, start[s], start[s + 1]);
+                for (int i = start[s]; i < start[s + 1]; i++) {
+                    if (i > start[s] && packed[i] == packed[i - 1]) {
+                        continue;
+                    }
+                    rowSymbols[count] = (int) (packed[i] >>> 32);
+                    rowPeers[count] = (int) packed[i];
+                    count++;
+                }
+            }
+            offsets[n] = count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.novytech.university.automata;
+
+// Phases of the transitive EPS elimination, in execution order
+public enum EliminationPhase {
+    ADD_INITIAL_STATES,
+    BUILD_EPSILON_CLOSURE,
+    MARK_NEW_FINAL_STATES,
+    ADD_NEW_TRANSITIONS,
+    DISCARD_EPS_TRANSITIONS,
+    VERIFY
+}
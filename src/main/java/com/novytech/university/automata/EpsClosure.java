@@ -0,0 +1,90 @@
+package com.novytech.university.automata;
+
+import java.util.*;
+
+// Reflexive-transitive EPS closure of every state, computed once per strongly connected component
+class EpsClosure {
+    private final int[][] epsSuccessors;
+    private final int[] component;
+    private final List<BitSet> componentRows = new ArrayList<>();
+
+    EpsClosure(int[][] epsSuccessors) {
+        this.epsSuccessors = epsSuccessors;
+        component = new int[epsSuccessors.length];
+        Arrays.fill(component, -1);
+        collapseComponents();
+    }
+
+    BitSet row(int state) {
+        return componentRows.get(component[state]);
+    }
+
+    // Iterative Tarjan; every component is closed right after all components reachable from it
+    private void collapseComponents() {
+        int n = epsSuccessors.length;
+        int[] order = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(order, -1);
+        int[] sccStack = new int[n];
+        int sccTop = 0;
+        boolean[] onStack = new boolean[n];
+        int[] callStack = new int[n];
+        int[] edgePos = new int[n];
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = root;
+            order[root] = low[root] = counter++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+            edgePos[root] = 0;
+
+            while (callTop > 0) {
+                int v = callStack[callTop - 1];
+                if (edgePos[v] < epsSuccessors[v].length) {
+                    int w = epsSuccessors[v][edgePos[v]++];
+                    if (order[w] == -1) {
+                        order[w] = low[w] = counter++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        edgePos[w] = 0;
+                        callStack[callTop++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == order[v]) {
+                    int id = componentRows.size();
+                    BitSet row = new BitSet(n);
+                    int from = sccTop;
+                    int member;
+                    do {
+                        member = sccStack[--sccTop];
+                        onStack[member] = false;
+                        component[member] = id;
+                        row.set(member);
+                    } while (member != v);
+                    for (int i = sccTop; i < from; i++) {
+                        for (int w : epsSuccessors[sccStack[i]]) {
+                            if (component[w] != id) {
+                                row.or(componentRows.get(component[w]));
+                            }
+                        }
+                    }
+                    componentRows.add(row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.novytech.university.automata;
+
+public enum EpsClosureEngine {
+    // Materialize transitive EPS transitions one by one, then derive new edges from them
+    TRANSITIVE,
+    // Collapse EPS cycles into components and derive everything from closure bitsets
+    SCC_BITSET
+}
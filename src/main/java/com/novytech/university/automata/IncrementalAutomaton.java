@@ -0,0 +1,394 @@
+package com.novytech.university.automata;
+
+import java.util.*;
+
+// Automaton that keeps its EPS transitions and maintains the EPS-free view next to them, so single edits
+// are applied without re-running elimination. The view follows the same rules as eliminateEps:
+//     s -a-> t   for every s -a-> q with t in the EPS closure of q
+//     s final    when its closure holds a final state
+//     t initial  when it is in the closure of an initial state
+// Closure rows and their reverse are kept explicitly, and every derived edge counts the source edges
+// supporting it, so an edit only touches the closure pairs it creates or destroys. Not thread-safe.
+public final class IncrementalAutomaton {
+    private final List<String> stateNames = new ArrayList<>();
+    private final Map<String, Integer> stateIds = new HashMap<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final Map<Symbol, Integer> symbolIds = new HashMap<>();
+
+    // Source automaton
+    private final BitSet finals = new BitSet();
+    private final BitSet initials = new BitSet();
+    private final List<Set<Integer>> epsOut = new ArrayList<>();
+    private final List<Map<Integer, Set<Integer>>> out = new ArrayList<>();
+    private final List<Map<Integer, Set<Integer>>> in = new ArrayList<>();
+
+    // closure.get(p) holds every t reachable from p over EPS, reverseClosure.get(t) every such p
+    private final List<Set<Integer>> closure = new ArrayList<>();
+    private final List<Set<Integer>> reverseClosure = new ArrayList<>();
+
+    // EPS-free view: source -> symbol -> target -> number of supporting source edges
+    private final List<Map<Integer, Map<Integer, Integer>>> derived = new ArrayList<>();
+    private int derivedCount;
+    private int[] finalSupport = new int[16];
+    private int[] initialSupport = new int[16];
+
+    public IncrementalAutomaton() {
+        symbol(Symbol.EPS);
+    }
+
+    public int state(String name) {
+        Integer id = stateIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        id = stateNames.size();
+        stateIds.put(name, id);
+        stateNames.add(name);
+        epsOut.add(new HashSet<>());
+        out.add(new HashMap<>());
+        in.add(new HashMap<>());
+        closure.add(new HashSet<>(Collections.singleton(id)));
+        reverseClosure.add(new HashSet<>(Collections.singleton(id)));
+        derived.add(new HashMap<>());
+        if (id == finalSupport.length) {
+            finalSupport = Arrays.copyOf(finalSupport, id * 2);
+            initialSupport = Arrays.copyOf(initialSupport, id * 2);
+        }
+        return id;
+    }
+
+    public int symbol(Symbol symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            symbolIds.put(symbol, id);
+            symbols.add(symbol);
+        }
+        return id;
+    }
+
+    public int stateCount() {
+        return stateNames.size();
+    }
+
+    public int symbolCount() {
+        return symbols.size();
+    }
+
+    public String stateName(int state) {
+        return stateNames.get(state);
+    }
+
+    public Symbol symbol(int symbol) {
+        return symbols.get(symbol);
+    }
+
+    // -1 when unknown
+    public int stateId(String name) {
+        Integer id = stateIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    // EDITS
+    public boolean addTransition(String source, Symbol activator, String target) {
+        return addTransition(state(source), symbol(activator), state(target));
+    }
+
+    public boolean removeTransition(String source, Symbol activator, String target) {
+        int s = stateId(source);
+        int t = stateId(target);
+        Integer a = symbolIds.get(activator);
+        return s >= 0 && t >= 0 && a != null && removeTransition(s, a, t);
+    }
+
+    // Returns false if the transition already exists
+    public boolean addTransition(int source, int symbol, int target) {
+        checkState(source);
+        checkState(target);
+        checkSymbol(symbol);
+        if (symbol == CompactAutomaton.EPS) {
+            return addEps(source, target);
+        }
+        if (!out.get(source).computeIfAbsent(symbol, a -> new HashSet<>()).add(target)) {
+            return false;
+        }
+        in.get(target).computeIfAbsent(symbol, a -> new HashSet<>()).add(source);
+        for (int t : closure.get(target)) {
+            support(source, symbol, t, 1);
+        }
+        return true;
+    }
+
+    // Returns false if there is no such transition
+    public boolean removeTransition(int source, int symbol, int target) {
+        checkState(source);
+        checkState(target);
+        checkSymbol(symbol);
+        if (symbol == CompactAutomaton.EPS) {
+            return removeEps(source, target);
+        }
+        Set<Integer> targets = out.get(source).get(symbol);
+        if (targets == null || !targets.remove(target)) {
+            return false;
+        }
+        in.get(target).get(symbol).remove(source);
+        for (int t : closure.get(target)) {
+            support(source, symbol, t, -1);
+        }
+        return true;
+    }
+
+    public void setFinal(int state, boolean isFinal) {
+        checkState(state);
+        if (finals.get(state) == isFinal) {
+            return;
+        }
+        finals.set(state, isFinal);
+        for (int p : reverseClosure.get(state)) {
+            finalSupport[p] += isFinal ? 1 : -1;
+        }
+    }
+
+    public void setInitial(int state, boolean isInitial) {
+        checkState(state);
+        if (initials.get(state) == isInitial) {
+            return;
+        }
+        initials.set(state, isInitial);
+        for (int t : closure.get(state)) {
+            initialSupport[t] += isInitial ? 1 : -1;
+        }
+    }
+
+    // New closure pairs are exactly closure(target) \ closure(p) for every p reaching source
+    private boolean addEps(int source, int target) {
+        if (!epsOut.get(source).add(target)) {
+            return false;
+        }
+        if (closure.get(source).contains(target)) {
+            return true;
+        }
+        List<Integer> reached = new ArrayList<>(closure.get(target));
+        for (int p : new ArrayList<>(reverseClosure.get(source))) {
+            for (int t : reached) {
+                link(p, t);
+            }
+        }
+        return true;
+    }
+
+    // Only states reaching source can lose closure pairs; their rows are recomputed and diffed
+    private boolean removeEps(int source, int target) {
+        if (!epsOut.get(source).remove(target)) {
+            return false;
+        }
+        if (reach(source).contains(target)) {
+            // Another EPS path still connects them, no closure changes
+            return true;
+        }
+        for (int p : new ArrayList<>(reverseClosure.get(source))) {
+            Set<Integer> kept = reach(p);
+            List<Integer> lost = new ArrayList<>();
+            for (int t : closure.get(p)) {
+                if (!kept.contains(t)) {
+                    lost.add(t);
+                }
+            }
+            for (int t : lost) {
+                unlink(p, t);
+            }
+        }
+        return true;
+    }
+
+    private Set<Integer> reach(int from) {
+        Set<Integer> seen = new HashSet<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        seen.add(from);
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            for (int next : epsOut.get(stack.pop())) {
+                if (seen.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private void link(int p, int t) {
+        if (!closure.get(p).add(t)) {
+            return;
+        }
+        reverseClosure.get(t).add(p);
+        updatePair(p, t, 1);
+    }
+
+    private void unlink(int p, int t) {
+        closure.get(p).remove(t);
+        reverseClosure.get(t).remove(p);
+        updatePair(p, t, -1);
+    }
+
+    // Effects of closure pair (p, t) on the view: derived edges into t, final p, initial t
+    private void updatePair(int p, int t, int delta) {
+        for (Map.Entry<Integer, Set<Integer>> incoming : in.get(p).entrySet()) {
+            for (int x : incoming.getValue()) {
+                support(x, incoming.getKey(), t, delta);
+            }
+        }
+        if (finals.get(t)) {
+            finalSupport[p] += delta;
+        }
+        if (initials.get(p)) {
+            initialSupport[t] += delta;
+        }
+    }
+
+    private void support(int source, int symbol, int target, int delta) {
+        Map<Integer, Integer> targets = derived.get(source).computeIfAbsent(symbol, a -> new HashMap<>());
+        int count = targets.getOrDefault(target, 0) + delta;
+        if (count == 0) {
+            targets.remove(target);
+            derivedCount--;
+        } else {
+            if (count == delta && delta > 0) {
+                derivedCount++;
+            }
+            targets.put(target, count);
+        }
+    }
+
+    private void checkState(int state) {
+        if (state < 0 || state >= stateNames.size()) {
+            throw new IllegalArgumentException("Unknown state id " + state);
+        }
+    }
+
+    private void checkSymbol(int symbol) {
+        if (symbol < 0 || symbol >= symbols.size()) {
+            throw new IllegalArgumentException("Unknown symbol id " + symbol);
+        }
+    }
+
+    // EPS-FREE VIEW
+    public boolean isFinal(int state) {
+        return finalSupport[state] > 0;
+    }
+
+    public boolean isInitial(int state) {
+        return initialSupport[state] > 0;
+    }
+
+    // Sorted targets of state on a non-EPS symbol
+    public int[] targets(int state, int symbol) {
+        Map<Integer, Integer> targets = derived.get(state).get(symbol);
+        if (targets == null) {
+            return new int[0];
+        }
+        int[] sorted = targets.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public int transitionCount() {
+        return derivedCount;
+    }
+
+    // Copy of the EPS-free view, same state and symbol numbering
+    public CompactAutomaton eliminated() {
+        CompactAutomaton.Builder builder = prepare();
+        for (int s = 0; s < stateNames.size(); s++) {
+            if (isInitial(s)) {
+                builder.initial(s);
+            }
+            if (isFinal(s)) {
+                builder.finalState(s);
+            }
+            for (Map.Entry<Integer, Map<Integer, Integer>> bySymbol : derived.get(s).entrySet()) {
+                for (int t : bySymbol.getValue().keySet()) {
+                    builder.transition(s, bySymbol.getKey(), t);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Copy of the automaton as edited, EPS transitions included
+    public CompactAutomaton source() {
+        CompactAutomaton.Builder builder = prepare();
+        for (int s = 0; s < stateNames.size(); s++) {
+            if (initials.get(s)) {
+                builder.initial(s);
+            }
+            if (finals.get(s)) {
+                builder.finalState(s);
+            }
+            for (int t : epsOut.get(s)) {
+                builder.transition(s, CompactAutomaton.EPS, t);
+            }
+            for (Map.Entry<Integer, Set<Integer>> bySymbol : out.get(s).entrySet()) {
+                for (int t : bySymbol.getValue()) {
+                    builder.transition(s, bySymbol.getKey(), t);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private CompactAutomaton.Builder prepare() {
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        for (String name : stateNames) {
+            builder.state(name);
+        }
+        for (Symbol symbol : symbols) {
+            builder.symbol(symbol);
+        }
+        return builder;
+    }
+
+    // FACTORIES
+    public static IncrementalAutomaton of(Automaton automaton) {
+        return of(CompactAutomaton.of(automaton));
+    }
+
+    // Closure rows come from one SCC pass instead of replaying every EPS edge
+    public static IncrementalAutomaton of(CompactAutomaton core) {
+        IncrementalAutomaton automaton = new IncrementalAutomaton();
+        int n = core.stateCount();
+        for (int s = 0; s < n; s++) {
+            automaton.state(core.stateName(s));
+        }
+        for (int a = CompactAutomaton.EPS + 1; a < core.symbolCount(); a++) {
+            automaton.symbol(core.symbol(a));
+        }
+
+        int[][] epsSuccessors = new int[n][];
+        for (int s = 0; s < n; s++) {
+            epsSuccessors[s] = new int[core.outEnd(s, CompactAutomaton.EPS) - core.outStart(s, CompactAutomaton.EPS)];
+            for (int e = core.outStart(s, CompactAutomaton.EPS), i = 0; e < core.outEnd(s, CompactAutomaton.EPS); e++, i++) {
+                epsSuccessors[s][i] = core.outTarget(e);
+                automaton.epsOut.get(s).add(core.outTarget(e));
+            }
+        }
+        EpsClosure epsClosure = new EpsClosure(epsSuccessors);
+        for (int p = 0; p < n; p++) {
+            BitSet row = epsClosure.row(p);
+            for (int t = row.nextSetBit(0); t >= 0; t = row.nextSetBit(t + 1)) {
+                automaton.closure.get(p).add(t);
+                automaton.reverseClosure.get(t).add(p);
+            }
+        }
+
+        for (int s = 0; s < n; s++) {
+            automaton.setFinal(s, core.isFinal(s));
+            for (int e = core.outEnd(s, CompactAutomaton.EPS); e < core.outEnd(s); e++) {
+                automaton.addTransition(s, core.outSymbol(e), core.outTarget(e));
+            }
+        }
+        for (int i = 0; i < core.initialStateCount(); i++) {
+            automaton.setInitial(core.initialState(i), true);
+        }
+        return automaton;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,8 @@ import java.util.Map;
 public class State implements Comparable<State>{
     private final String name;
     private @Setter StateType type;
+    // Ids of the patterns this state accepts for, only used by union automata
+    private final BitSet patterns = new BitSet();
 
     private Map<Symbol, List<Transition>> inbound = new HashMap<>();
     private Map<Symbol, List<Transition>> outbound = new HashMap<>();
@@ -31,7 +34,7 @@ public class State implements Comparable<State>{
     @Override
     public String toString() {
         if (type == StateType.FINAL) {
-            return "(" + name + ")";
+            return "(" + name + ")" + (patterns.isEmpty() ? "" : patterns);
         }
         return name;
     }
@@ -122,4 +125,10 @@ public class State implements Comparable<State>{
         }
 
     }
+
+    // Drops every transition on given activator at once; caller must do the same for all peer states
+    void clearTransitions(Symbol activator) {
+        outbound.remove(activator);
+        inbound.remove(activator);
+    }
 }
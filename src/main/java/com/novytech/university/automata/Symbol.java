@@ -1,19 +1,107 @@
 package com.novytech.university.automata;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
+import java.util.Arrays;
+
+// A plain symbol is its text. A range symbol stands for every char in a set of intervals, so a character class
+// is one symbol and one transition instead of one per char; its text is the class in [a-z] form.
 @Getter
 @EqualsAndHashCode
-@AllArgsConstructor
 public class Symbol implements Comparable<Symbol> {
     public static final Symbol EPS = new Symbol("EPS");
 
+    private static final int[] NO_CHARS = new int[0];
+
     private final String symbol;
+    // Sorted, disjoint, non-adjacent inclusive [from, to] pairs; null for plain symbols
+    @Getter(AccessLevel.NONE)
+    private final int[] ranges;
+
+    public Symbol(String symbol) {
+        this(symbol, null);
+    }
+
+    private Symbol(String symbol, int[] ranges) {
+        this.symbol = symbol;
+        this.ranges = ranges;
+    }
+
+    public static Symbol range(char from, char to) {
+        return ranges(from, to);
+    }
+
+    // Inclusive [from, to] pairs in any order, overlaps allowed; a single char gives the plain symbol for it
+    public static Symbol ranges(int... bounds) {
+        if (bounds.length == 0 || bounds.length % 2 != 0) {
+            throw new IllegalArgumentException("Cannot build range symbol: expected [from, to] pairs, got " + bounds.length + " bounds");
+        }
+        long[] pairs = new long[bounds.length / 2];
+        for (int i = 0; i < pairs.length; i++) {
+            int from = bounds[2 * i];
+            int to = bounds[2 * i + 1];
+            if (from < Character.MIN_VALUE || to > Character.MAX_VALUE || from > to) {
+                throw new IllegalArgumentException("Cannot build range symbol: bad range " + from + "-" + to);
+            }
+            pairs[i] = (long) from << 32 | to;
+        }
+        Arrays.sort(pairs);
+        int[] merged = new int[bounds.length];
+        int count = 0;
+        for (long pair : pairs) {
+            int from = (int) (pair >>> 32);
+            int to = (int) pair;
+            if (count > 0 && from <= merged[count - 1] + 1) {
+                merged[count - 1] = Math.max(merged[count - 1], to);
+            } else {
+                merged[count++] = from;
+                merged[count++] = to;
+            }
+        }
+        if (count == 2 && merged[0] == merged[1]) {
+            return new Symbol(String.valueOf((char) merged[0]));
+        }
+        int[] ranges = Arrays.copyOf(merged, count);
+        return new Symbol(text(ranges), ranges);
+    }
+
+    public boolean isRange() {
+        return ranges != null;
+    }
+
+    // Chars this symbol stands for, as sorted inclusive [from, to] pairs: its ranges, the char of a
+    // single-char plain symbol, nothing for other symbols
+    public int[] charRanges() {
+        if (ranges != null) {
+            return ranges.clone();
+        }
+        return symbol.length() == 1 ? new int[]{symbol.charAt(0), symbol.charAt(0)} : NO_CHARS;
+    }
+
+    private static String text(int[] ranges) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < ranges.length; i += 2) {
+            appendChar(text, ranges[i]);
+            if (ranges[i + 1] != ranges[i]) {
+                appendChar(text.append('-'), ranges[i + 1]);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    private static void appendChar(StringBuilder text, int c) {
+        if (c > 0x20 && c < 0x7F && "[]-\\^".indexOf(c) < 0) {
+            text.append((char) c);
+        } else {
+            text.append(String.format("\\u%04X", c));
+        }
+    }
 
     @Override
     public int compareTo(Symbol o) {
-        return symbol.compareTo(o.symbol);
+        int byText = symbol.compareTo(o.symbol);
+        return byText != 0 ? byText : Boolean.compare(ranges != null, o.ranges != null);
     }
 }
@@ -0,0 +1,21 @@
+package com.novytech.university.automata;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TrimReport {
+    // Unreachable from the initial states or unable to reach a final one
+    private final int statesRemoved;
+    private final int transitionsRemoved;
+
+    public static TrimReport between(CompactAutomaton before, CompactAutomaton after) {
+        return new TrimReport(before.stateCount() - after.stateCount(), before.transitionCount() - after.transitionCount());
+    }
+
+    @Override
+    public String toString() {
+        return "Trimmed " + statesRemoved + " states and " + transitionsRemoved + " transitions";
+    }
+}
@@ -0,0 +1,133 @@
+package com.novytech.university.batch;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Queues results and writes them from one background thread, so workers only pay for an enqueue.
+// Results carry the whole rendered DFA, so the queue is bounded: when the writer falls behind, accept blocks
+// until there is room. Workers then hold their permits longer and BatchPipeline.submit slows down with them.
+public final class AsyncSink implements ResultSink {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private interface Writer {
+        void write(JobResult result) throws IOException;
+    }
+
+    private static final JobResult END = new JobResult(null, null, 0, null, 0, 0, 0, null);
+
+    private final BlockingQueue<JobResult> queue;
+    private final Writer target;
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    private AsyncSink(String name, int capacity, Writer target) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cannot create sink: capacity must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.target = target;
+        this.writer = new Thread(this::drain, name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // One file per job: <name>.dfa for results, <name>.error for failures and timeouts
+    public static AsyncSink toDirectory(Path directory) throws IOException {
+        return toDirectory(directory, DEFAULT_CAPACITY);
+    }
+
+    public static AsyncSink toDirectory(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        return new AsyncSink("batch-sink-" + directory.getFileName(), capacity, result -> {
+            boolean ok = result.getStatus() == JobResult.Status.OK;
+            String suffix = ok ? ".dfa" : ".error";
+            String content = ok ? result.getOutput() : result.summary() + System.lineSeparator()
+                    + (result.getOutput() != null ? result.getOutput() + System.lineSeparator() : "");
+            Files.write(directory.resolve(result.getName() + suffix), content.getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    // Summary line per job, followed by the rendered DFA when withOutput is set
+    public static AsyncSink toStream(PrintStream out, boolean withOutput) {
+        return toStream(out, withOutput, DEFAULT_CAPACITY);
+    }
+
+    public static AsyncSink toStream(PrintStream out, boolean withOutput, int capacity) {
+        return new AsyncSink("batch-sink-stream", capacity, result -> {
+            out.println(result.summary());
+            if (withOutput && result.getStatus() == JobResult.Status.OK) {
+                out.print(result.getOutput());
+            }
+        });
+    }
+
+    // Blocks while the queue is full. An interrupt does not drop the result: it is enqueued anyway and the
+    // interrupt flag is restored afterwards
+    @Override
+    public void accept(JobResult result) {
+        if (closed) {
+            throw new IllegalStateException("Cannot accept " + result.getName() + ": sink is closed");
+        }
+        enqueue(result);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            enqueue(END);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing results", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void enqueue(JobResult result) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(result);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Keeps draining after a failed write so that close never hangs; the first failure is reported by close
+    private void drain() {
+        while (true) {
+            JobResult result;
+            try {
+                result = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (result == END) {
+                return;
+            }
+            try {
+                target.write(result);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.novytech.university.batch;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.TrimReport;
+import com.novytech.university.io.AutomatonLoader;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Runs independent automata through EPS elimination and determinization concurrently.
+// At most parallelism jobs are in flight: submit blocks until one finishes, which bounds memory for
+// arbitrarily long inputs. Jobs run on virtual threads when the JVM has them, on a fixed pool otherwise.
+// A job that exceeds its timeout, counted from submission, which holds a free slot, is interrupted and reported
+// as TIMED_OUT by its own worker. Its permit only comes back when that worker exits, so a job that ignores the
+// interrupt still counts against parallelism instead of leaving an extra CPU-bound thread behind.
+// The timer thread never touches the sink, so a slow sink cannot hold up other jobs' timeouts.
+public class BatchPipeline implements AutoCloseable {
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timeouts;
+    private final Semaphore inFlight;
+    private final long timeoutMillis;
+    private final ResultSink sink;
+
+    // One party per unfinished job plus the coordinator
+    private final Phaser pending = new Phaser(1);
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    public BatchPipeline(int parallelism, long timeoutMillis, ResultSink sink) {
+        if (parallelism < 1 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("Cannot create pipeline: parallelism and timeout must be positive");
+        }
+        this.executor = newExecutor(parallelism);
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "batch-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.inFlight = new Semaphore(parallelism);
+        this.timeoutMillis = timeoutMillis;
+        this.sink = sink;
+    }
+
+    public void submit(Path file) throws InterruptedException {
+        submit(file.getFileName().toString(), () -> AutomatonLoader.load(file));
+    }
+
+    // Regular files of the directory in name order
+    public void submitDirectory(Path directory) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            submit(file);
+        }
+    }
+
+    // Blocks while parallelism workers are still running
+    public void submit(String name, Callable<CompactAutomaton> source) throws InterruptedException {
+        inFlight.acquire();
+        pending.register();
+        Job job = new Job(name, source);
+        try {
+            executor.execute(job.task);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            pending.arriveAndDeregister();
+            throw e;
+        }
+        job.timeout = timeouts.schedule(job::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+        if (job.task.isDone()) {
+            job.timeout.cancel(false);
+        }
+    }
+
+    // Waits until every submitted job is reported; the pipeline stays usable afterwards
+    public BatchSummary awaitCompletion() {
+        pending.arriveAndAwaitAdvance();
+        return new BatchSummary(succeeded.get(), failed.get(), timedOut.get(), System.nanoTime() - startNanos);
+    }
+
+    // Does not close the sink, which belongs to the caller
+    @Override
+    public void close() {
+        // Queued tasks never run, so cancelling them is what reports them
+        for (Runnable unstarted : executor.shutdownNow()) {
+            ((Future<?>) unstarted).cancel(false);
+        }
+        timeouts.shutdownNow();
+    }
+
+    private static ExecutorService newExecutor(int parallelism) {
+        try {
+            Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreads.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(parallelism, task -> {
+                Thread thread = new Thread(task, "batch-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private final class Job {
+        private final String name;
+        private final Callable<CompactAutomaton> source;
+        private final long startNanos = System.nanoTime();
+        // Whoever claims the job, its worker or a cancellation before the worker started, reports it and
+        // gives the permit back
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final AtomicBoolean reported = new AtomicBoolean();
+        private volatile boolean expired;
+        private volatile ScheduledFuture<?> timeout;
+        private final FutureTask<Void> task = new FutureTask<Void>(this::run, null) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    abandon();
+                }
+            }
+        };
+
+        private Job(String name, Callable<CompactAutomaton> source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        private void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            int nfaStates = 0;
+            try {
+                // Expired before this worker got to it; expire saw the job unclaimed and left it to us
+                if (expired) {
+                    throw new CancellationException("Job " + name + " expired before it started");
+                }
+                CompactAutomaton nfa = source.call();
+                nfaStates = nfa.stateCount();
+                // Elimination, trimming and rendering do not poll the interrupt, so a cancelled job stops between them
+                checkInterrupted();
+                CompactAutomaton eliminated = nfa.eliminateEps();
+                checkInterrupted();
+                CompactAutomaton trimmed = eliminated.trim();
+                TrimReport trim = TrimReport.between(eliminated, trimmed);
+                SuperAutomaton dfa = SuperAutomaton.fromAutomaton(trimmed);
+                checkInterrupted();
+                ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(rendered, false, "UTF-8");
+                dfa.show(out);
+                out.flush();
+                report(new JobResult(name, JobResult.Status.OK, nfaStates, trim, dfa.getStates().size(),
+                        dfa.getTransitions().size(), elapsed(), rendered.toString("UTF-8")));
+            } catch (Exception e) {
+                // However the interrupt surfaced, an expired job timed out; the interrupt was ours, so clear it
+                // before the sink sees this thread. Otherwise close or the job itself failed it.
+                if (expired) {
+                    Thread.interrupted();
+                }
+                report(expired
+                        ? new JobResult(name, JobResult.Status.TIMED_OUT, nfaStates, null, 0, 0, elapsed(), null)
+                        : new JobResult(name, JobResult.Status.FAILED, nfaStates, null, 0, 0, elapsed(), e.toString()));
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        private void checkInterrupted() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Job " + name + " interrupted");
+            }
+        }
+
+        // Runs on the shared timer thread, so it only interrupts; the worker reports, and writes to the sink
+        private void expire() {
+            expired = true;
+            if (claimed.get()) {
+                task.cancel(true);
+            }
+        }
+
+        // Cancelled before a worker claimed it, which only close does
+        private void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    report(new JobResult(name, JobResult.Status.FAILED, 0, null, 0, 0, elapsed(), "cancelled before it started"));
+                } finally {
+                    inFlight.release();
+                }
+            }
+        }
+
+        private void report(JobResult result) {
+            if (!reported.compareAndSet(false, true)) {
+                return;
+            }
+            ScheduledFuture<?> pendingTimeout = timeout;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+            switch (result.getStatus()) {
+                case OK:
+                    succeeded.incrementAndGet();
+                    break;
+                case FAILED:
+                    failed.incrementAndGet();
+                    break;
+                case TIMED_OUT:
+                    timedOut.incrementAndGet();
+                    break;
+            }
+            try {
+                sink.accept(result);
+            } finally {
+                pending.arriveAndDeregister();
+            }
+        }
+
+        private long elapsed() {
+            return System.nanoTime() - startNanos;
+        }
+    }
+}
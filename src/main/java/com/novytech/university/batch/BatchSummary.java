@@ -0,0 +1,18 @@
+package com.novytech.university.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BatchSummary {
+    private final int succeeded;
+    private final int failed;
+    private final int timedOut;
+    private final long wallNanos;
+
+    @Override
+    public String toString() {
+        return String.format("%d ok, %d failed, %d timed out in %.1f ms", succeeded, failed, timedOut, wallNanos / 1e6);
+    }
+}
@@ -0,0 +1,29 @@
+package com.novytech.university.batch;
+
+import com.novytech.university.automata.TrimReport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class JobResult {
+    public enum Status { OK, FAILED, TIMED_OUT }
+
+    private final String name;
+    private final Status status;
+    private final int nfaStates;
+    // What the trim pass removed after EPS elimination, null when the job did not get that far
+    private final TrimReport trim;
+    private final int dfaStates;
+    private final int dfaTransitions;
+    private final long wallNanos;
+    // Rendered DFA for OK jobs, the error for failed ones
+    private final String output;
+
+    public String summary() {
+        return String.format("%s %s nfa=%d trimmed=%d/%d dfa=%d transitions=%d %.1f ms",
+                name, status, nfaStates, trim == null ? 0 : trim.getStatesRemoved(), trim == null ? 0 : trim.getTransitionsRemoved(),
+                dfaStates, dfaTransitions, wallNanos / 1e6);
+    }
+}
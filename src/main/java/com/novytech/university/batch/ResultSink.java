@@ -0,0 +1,13 @@
+package com.novytech.university.batch;
+
+import java.io.IOException;
+
+// Destination of batch results; accept is called from worker threads and must not block on I/O.
+// It may block while the sink is behind, which is how a slow destination pushes back on the workers
+public interface ResultSink extends AutoCloseable {
+    void accept(JobResult result);
+
+    // Flushes everything accepted so far
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,362 @@
+package com.novytech.university.io;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Single-pass loaders for the text and binary automaton formats, straight into a CompactAutomaton.
+//
+// Text format, one item per line, '#' starts a comment:
+//     states: q0 q1 q2       optional, fixes the numbering of the listed states
+//     alphabet: x y          optional, fixes the numbering of the listed symbols
+//     initial: q0
+//     final: q2
+//     q0 x q1                transition, EPS is the empty move
+//
+// Binary format, big-endian: magic "NFA1", state count, symbol count (EPS excluded), initial count,
+// final count, edge count as long, then length-prefixed UTF-8 state and symbol names, initial ids,
+// final ids, and (source, symbol, target) int triples where symbol 0 is EPS.
+public final class AutomatonLoader {
+    static final int BINARY_MAGIC = 0x4E464131;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private AutomatonLoader() {}
+
+    // Picks the format from the first bytes of the file
+    public static CompactAutomaton load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) != -1) {
+                // keep reading until the magic is complete or the file ends
+            }
+            boolean binary = head.position() == 4 && head.getInt(0) == BINARY_MAGIC;
+            channel.position(0);
+            return binary ? loadBinary(channel) : loadText(channel);
+        }
+    }
+
+    public static CompactAutomaton loadText(ReadableByteChannel channel) throws IOException {
+        return new TextParser().parse(channel);
+    }
+
+    public static CompactAutomaton loadBinary(ReadableByteChannel channel) throws IOException {
+        BinaryReader in = new BinaryReader(channel);
+        if (in.readInt() != BINARY_MAGIC) {
+            throw new IllegalArgumentException("Cannot load automaton: not in binary NFA1 format");
+        }
+        int stateCount = in.readInt();
+        int symbolCount = in.readInt();
+        int initialCount = in.readInt();
+        int finalCount = in.readInt();
+        long edgeCount = in.readLong();
+
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        for (int s = 0; s < stateCount; s++) {
+            if (builder.state(in.readName()) != s) {
+                throw new IllegalArgumentException("Cannot load automaton: duplicate state name at " + s);
+            }
+        }
+        int[] symbols = new int[symbolCount + 1];
+        symbols[0] = CompactAutomaton.EPS;
+        for (int a = 1; a <= symbolCount; a++) {
+            symbols[a] = builder.symbol(new Symbol(in.readName()));
+        }
+        for (int i = 0; i < initialCount; i++) {
+            builder.initial(in.readInt());
+        }
+        for (int i = 0; i < finalCount; i++) {
+            builder.finalState(in.readInt());
+        }
+        for (long e = 0; e < edgeCount; e++) {
+            int source = in.readInt();
+            int symbol = in.readInt();
+            int target = in.readInt();
+            if (symbol < 0 || symbol > symbolCount) {
+                throw new IllegalArgumentException("Cannot load automaton: edge " + e + " has unknown symbol " + symbol);
+            }
+            builder.transition(source, symbols[symbol], target);
+        }
+        return builder.build();
+    }
+
+    private enum LineKind { TRANSITION, STATES, ALPHABET, INITIAL, FINAL }
+
+    // Byte-level tokenizer; names are interned by their bytes, so a String is only created per distinct name
+    private static final class TextParser {
+        private final CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        private final NameTable states = new NameTable();
+        private final NameTable symbols = new NameTable();
+
+        private byte[] token = new byte[64];
+        private int tokenLength;
+        private boolean inComment;
+
+        private long line = 1;
+        private LineKind kind;
+        private int tokenIndex;
+        private final int[] edge = new int[3];
+
+        private CompactAutomaton parse(ReadableByteChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            byte[] bytes = buffer.array();
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    accept(bytes[i]);
+                }
+                buffer.clear();
+            }
+            accept((byte) '\n');
+            return builder.build();
+        }
+
+        private void accept(byte b) {
+            if (b == '\n') {
+                endToken();
+                endLine();
+                inComment = false;
+                line++;
+                return;
+            }
+            if (inComment) {
+                return;
+            }
+            if (b == '#') {
+                endToken();
+                inComment = true;
+            } else if (b == ' ' || b == '\t' || b == '\r') {
+                endToken();
+            } else {
+                if (tokenLength == token.length) {
+                    token = Arrays.copyOf(token, token.length * 2);
+                }
+                token[tokenLength++] = b;
+            }
+        }
+
+        private void endToken() {
+            if (tokenLength == 0) {
+                return;
+            }
+            if (tokenIndex == 0 && token[tokenLength - 1] == ':') {
+                kind = directive();
+            } else {
+                if (tokenIndex == 0) {
+                    kind = LineKind.TRANSITION;
+                }
+                switch (kind) {
+                    case TRANSITION:
+                        if (tokenIndex > 2) {
+                            throw error("transition needs exactly source, symbol and target");
+                        }
+                        edge[tokenIndex] = tokenIndex == 1 ? symbol() : state();
+                        break;
+                    case ALPHABET:
+                        symbol();
+                        break;
+                    case INITIAL:
+                        builder.initial(state());
+                        break;
+                    case FINAL:
+                        builder.finalState(state());
+                        break;
+                    default:
+                        state();
+                        break;
+                }
+            }
+            tokenIndex++;
+            tokenLength = 0;
+        }
+
+        private void endLine() {
+            if (kind == LineKind.TRANSITION) {
+                if (tokenIndex != 3) {
+                    throw error("transition needs exactly source, symbol and target");
+                }
+                builder.transition(edge[0], edge[1], edge[2]);
+            }
+            kind = null;
+            tokenIndex = 0;
+        }
+
+        private LineKind directive() {
+            String name = new String(token, 0, tokenLength - 1, StandardCharsets.UTF_8);
+            switch (name) {
+                case "states":
+                    return LineKind.STATES;
+                case "alphabet":
+                    return LineKind.ALPHABET;
+                case "initial":
+                    return LineKind.INITIAL;
+                case "final":
+                    return LineKind.FINAL;
+                default:
+                    throw error("unknown directive '" + name + ":'");
+            }
+        }
+
+        private int state() {
+            int id = states.find(token, tokenLength);
+            if (id < 0) {
+                id = builder.state(new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+                states.add(token, tokenLength, id);
+            }
+            return id;
+        }
+
+        private int symbol() {
+            int id = symbols.find(token, tokenLength);
+            if (id < 0) {
+                id = builder.symbol(new Symbol(new String(token, 0, tokenLength, StandardCharsets.UTF_8)));
+                symbols.add(token, tokenLength, id);
+            }
+            return id;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Cannot load automaton, line " + line + ": " + message);
+        }
+    }
+
+    // Open-addressing table from name bytes to id; all names share one byte pool
+    private static final class NameTable {
+        private byte[] pool = new byte[1024];
+        private int poolSize;
+        private int[] offsets = new int[16];
+        private int[] lengths = new int[16];
+        private int[] ids = new int[16];
+        private int count;
+        // slot -> entry + 1, 0 when free
+        private int[] slots = new int[32];
+
+        private int find(byte[] name, int length) {
+            int mask = slots.length - 1;
+            for (int slot = hash(name, length) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (matches(entry, name, length)) {
+                    return ids[entry];
+                }
+            }
+            return -1;
+        }
+
+        private void add(byte[] name, int length, int id) {
+            if (poolSize + length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+            System.arraycopy(name, 0, pool, poolSize, length);
+            if (count == ids.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            offsets[count] = poolSize;
+            lengths[count] = length;
+            ids[count] = id;
+            poolSize += length;
+            count++;
+            if (count * 2 > slots.length) {
+                rehash(slots.length * 2);
+            } else {
+                insert(count - 1);
+            }
+        }
+
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            for (int entry = 0; entry < count; entry++) {
+                insert(entry);
+            }
+        }
+
+        private void insert(int entry) {
+            int mask = slots.length - 1;
+            int slot = hash(pool, offsets[entry], lengths[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+
+        private boolean matches(int entry, byte[] name, int length) {
+            if (lengths[entry] != length) {
+                return false;
+            }
+            int offset = offsets[entry];
+            for (int i = 0; i < length; i++) {
+                if (pool[offset + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(byte[] bytes, int length) {
+            return hash(bytes, 0, length);
+        }
+
+        // FNV-1a, then spread so that the low bits used for the slot depend on every byte
+        private static int hash(byte[] bytes, int offset, int length) {
+            int h = 0x811C9DC5;
+            for (int i = offset; i < offset + length; i++) {
+                h = (h ^ bytes[i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+
+    // Buffered big-endian reader over a channel
+    private static final class BinaryReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+        private BinaryReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) == -1) {
+                    throw new IllegalArgumentException("Cannot load automaton: binary file is truncated");
+                }
+            }
+            buffer.flip();
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        private long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        private String readName() throws IOException {
+            int length = readInt();
+            if (length < 0 || length > CHUNK_SIZE) {
+                throw new IllegalArgumentException("Cannot load automaton: bad name length " + length);
+            }
+            require(length);
+            String name = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return name;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.novytech.university.io;
+
+import com.novytech.university.automata.CompactAutomaton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes the formats read by AutomatonLoader
+public final class AutomatonWriter {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private AutomatonWriter() {}
+
+    public static void writeText(CompactAutomaton automaton, Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            writeText(automaton, channel);
+        }
+    }
+
+    public static void writeBinary(CompactAutomaton automaton, Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            writeBinary(automaton, channel);
+        }
+    }
+
+    public static void writeText(CompactAutomaton automaton, WritableByteChannel channel) throws IOException {
+        checkPlainSymbols(automaton);
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            checkTextToken("state", automaton.stateName(s), true);
+        }
+        for (int a = CompactAutomaton.EPS + 1; a < automaton.symbolCount(); a++) {
+            checkTextToken("symbol", automaton.symbol(a).getSymbol(), false);
+        }
+        ChunkedWriter out = new ChunkedWriter(channel);
+        out.text("states:");
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            out.text(" ").text(automaton.stateName(s));
+        }
+        out.text("\nalphabet:");
+        for (int a = CompactAutomaton.EPS + 1; a < automaton.symbolCount(); a++) {
+            out.text(" ").text(automaton.symbol(a).getSymbol());
+        }
+        out.text("\ninitial:");
+        for (int i = 0; i < automaton.initialStateCount(); i++) {
+            out.text(" ").text(automaton.stateName(automaton.initialState(i)));
+        }
+        out.text("\nfinal:");
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            if (automaton.isFinal(s)) {
+                out.text(" ").text(automaton.stateName(s));
+            }
+        }
+        out.text("\n");
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            for (int e = automaton.outStart(s); e < automaton.outEnd(s); e++) {
+                out.text(automaton.stateName(s)).text(" ")
+                        .text(automaton.symbol(automaton.outSymbol(e)).getSymbol()).text(" ")
+                        .text(automaton.stateName(automaton.outTarget(e))).text("\n");
+            }
+        }
+        out.flush();
+    }
+
+    public static void writeBinary(CompactAutomaton automaton, WritableByteChannel channel) throws IOException {
+        checkPlainSymbols(automaton);
+        ChunkedWriter out = new ChunkedWriter(channel);
+        int finalCount = 0;
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            finalCount += automaton.isFinal(s) ? 1 : 0;
+        }
+        out.integer(AutomatonLoader.BINARY_MAGIC)
+                .integer(automaton.stateCount())
+                .integer(automaton.symbolCount() - 1)
+                .integer(automaton.initialStateCount())
+                .integer(finalCount)
+                .longInteger(automaton.transitionCount());
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            out.name(automaton.stateName(s));
+        }
+        for (int a = CompactAutomaton.EPS + 1; a < automaton.symbolCount(); a++) {
+            out.name(automaton.symbol(a).getSymbol());
+        }
+        for (int i = 0; i < automaton.initialStateCount(); i++) {
+            out.integer(automaton.initialState(i));
+        }
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            if (automaton.isFinal(s)) {
+                out.integer(s);
+            }
+        }
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            for (int e = automaton.outStart(s); e < automaton.outEnd(s); e++) {
+                out.integer(s).integer(automaton.outSymbol(e)).integer(automaton.outTarget(e));
+            }
+        }
+        out.flush();
+    }
+
+    // Both formats store symbols as text, which would read back as plain symbols
+    private static void checkPlainSymbols(CompactAutomaton automaton) {
+        for (int a = CompactAutomaton.EPS + 1; a < automaton.symbolCount(); a++) {
+            if (automaton.symbol(a).isRange()) {
+                throw new IllegalArgumentException("Cannot write automaton: range symbol " + automaton.symbol(a).getSymbol() + " has no file form");
+            }
+        }
+    }
+
+    // The text format has no quoting: AutomatonLoader splits tokens at whitespace, drops what follows '#' and
+    // reads a first token ending in ':' as a directive, which only states can be. The binary format stores any name.
+    private static void checkTextToken(String what, String token, boolean startsLines) {
+        boolean plain = !token.isEmpty() && !(startsLines && token.endsWith(":"));
+        for (int i = 0; plain && i < token.length(); i++) {
+            char c = token.charAt(i);
+            plain = c != ' ' && c != '\t' && c != '\r' && c != '\n' && c != '#';
+        }
+        if (!plain) {
+            throw new IllegalArgumentException("Cannot write automaton as text: " + what + " '" + token
+                    + "' would not read back as one token; write it as binary instead");
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static final class ChunkedWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+        private ChunkedWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private ChunkedWriter text(String text) throws IOException {
+            return bytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private ChunkedWriter name(String name) throws IOException {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            return integer(bytes.length).bytes(bytes);
+        }
+
+        private ChunkedWriter integer(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+            return this;
+        }
+
+        private ChunkedWriter longInteger(long value) throws IOException {
+            room(8);
+            buffer.putLong(value);
+            return this;
+        }
+
+        private ChunkedWriter bytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                room(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+            return this;
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
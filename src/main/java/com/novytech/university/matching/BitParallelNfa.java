@@ -0,0 +1,301 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CharPartition;
+import com.novytech.university.automata.CharTable;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+// Simulates an EPS-free NFA directly, keeping the set of active states as a bitmask. Building costs one
+// pass over the transitions, so for small automata this replaces subset construction entirely.
+// Up to 64 states the set is a single long and every step is eight lookups in per-symbol tables holding
+// the successor mask of each byte of the set; larger automata use long[] masks and OR the successor
+// rows of the active states, through the same kind of byte tables while they stay small. Matching allocates
+// nothing per character. Instances are immutable and can be shared between threads.
+public abstract class BitParallelNfa {
+    private final int stateCount;
+    // Symbol id of every char a symbol covers, -1 for other chars; charSymbols is its dense part
+    private final CharTable chars;
+    private final int[] charSymbols;
+    private final Symbol[] symbols;
+
+    private BitParallelNfa(CompactAutomaton core) {
+        this.stateCount = core.stateCount();
+        this.symbols = new Symbol[core.symbolCount()];
+        int[] ids = new int[symbols.length];
+        for (int a = 0; a < symbols.length; a++) {
+            symbols[a] = core.symbol(a);
+            ids[a] = a;
+        }
+        this.chars = CharTable.of(symbols, ids, -1);
+        this.charSymbols = chars.dense();
+    }
+
+    public static BitParallelNfa of(Automaton automaton) {
+        return of(CompactAutomaton.of(automaton));
+    }
+
+    // Picks single-word masks up to 64 states; overlapping range symbols are split first, see CharPartition
+    public static BitParallelNfa of(CompactAutomaton core) {
+        for (int s = 0; s < core.stateCount(); s++) {
+            if (core.outEnd(s, CompactAutomaton.EPS) > core.outStart(s, CompactAutomaton.EPS)) {
+                throw new IllegalArgumentException("Cannot build bit-parallel NFA: state " + core.stateName(s) + " has EPS transitions");
+            }
+        }
+        CompactAutomaton split = core.partitioned();
+        return split.stateCount() <= 64 ? new SingleWord(split) : new MultiWord(split);
+    }
+
+    public int stateCount() {
+        return stateCount;
+    }
+
+    public abstract boolean isSingleWord();
+
+    // -1 when unknown; a char symbol split by partitioning resolves as in CharPartition.classIndex
+    public int symbolId(Symbol symbol) {
+        for (int a = CompactAutomaton.EPS + 1; a < symbols.length; a++) {
+            if (symbols[a].equals(symbol)) {
+                return a;
+            }
+        }
+        return CharPartition.classIndex(symbols, symbol);
+    }
+
+    // Every char is read as the symbol covering it: the single-character symbol with the same text or a range
+    public boolean accepts(CharSequence input) {
+        return run(input.length(), i -> chars.get(input.charAt(i)));
+    }
+
+    // Symbols are ids of this automaton's symbols, as returned by symbolId
+    public boolean accepts(int[] input) {
+        return run(input.length, i -> input[i] > CompactAutomaton.EPS && input[i] < symbols.length ? input[i] : -1);
+    }
+
+    int[] charSymbols() {
+        return charSymbols;
+    }
+
+    int sparseSymbol(char c) {
+        return chars.sparse(c);
+    }
+
+    // symbolAt gives the symbol id at every position, -1 when the automaton has no such symbol
+    abstract boolean run(int length, IntUnaryOperator symbolAt);
+
+    private static final class SingleWord extends BitParallelNfa {
+        // successors[symbol][chunk * 256 + byte]: union of successor masks of the states in that byte of the set
+        private final long[][] successors;
+        private final long initial;
+        private final long finals;
+
+        private SingleWord(CompactAutomaton core) {
+            super(core);
+            int n = core.stateCount();
+            int chunks = (n + 7) >>> 3;
+            successors = new long[core.symbolCount()][];
+            long[] rows = new long[n];
+            for (int a = CompactAutomaton.EPS + 1; a < core.symbolCount(); a++) {
+                Arrays.fill(rows, 0);
+                for (int s = 0; s < n; s++) {
+                    for (int e = core.outStart(s, a); e < core.outEnd(s, a); e++) {
+                        rows[s] |= 1L << core.outTarget(e);
+                    }
+                }
+                long[] table = new long[chunks * 256];
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    // Each byte value extends a smaller one by its highest bit
+                    for (int b = 1; b < 256; b++) {
+                        int high = 31 - Integer.numberOfLeadingZeros(b);
+                        int state = chunk * 8 + high;
+                        table[chunk * 256 + b] = table[chunk * 256 + (b ^ (1 << high))] | (state < n ? rows[state] : 0);
+                    }
+                }
+                successors[a] = table;
+            }
+            long initial = 0;
+            for (int i = 0; i < core.initialStateCount(); i++) {
+                initial |= 1L << core.initialState(i);
+            }
+            long finals = 0;
+            for (int s = 0; s < n; s++) {
+                if (core.isFinal(s)) {
+                    finals |= 1L << s;
+                }
+            }
+            this.initial = initial;
+            this.finals = finals;
+        }
+
+        @Override
+        public boolean isSingleWord() {
+            return true;
+        }
+
+        // Same as run without the per-char symbol lookup indirection, the hot path for small patterns
+        @Override
+        public boolean accepts(CharSequence input) {
+            int[] charSymbols = charSymbols();
+            long[][] successors = this.successors;
+            long set = initial;
+            for (int i = 0, length = input.length(); i < length; i++) {
+                char c = input.charAt(i);
+                int symbol = c < charSymbols.length ? charSymbols[c] : sparseSymbol(c);
+                if (symbol < 0) {
+                    return false;
+                }
+                set = step(successors[symbol], set);
+                if (set == 0) {
+                    return false;
+                }
+            }
+            return (set & finals) != 0;
+        }
+
+        @Override
+        boolean run(int length, IntUnaryOperator symbolAt) {
+            long set = initial;
+            for (int i = 0; i < length; i++) {
+                int symbol = symbolAt.applyAsInt(i);
+                if (symbol < 0) {
+                    return false;
+                }
+                set = step(successors[symbol], set);
+                if (set == 0) {
+                    return false;
+                }
+            }
+            return (set & finals) != 0;
+        }
+
+        private static long step(long[] table, long set) {
+            long next = 0;
+            for (int base = 0; set != 0; base += 256, set >>>= 8) {
+                next |= table[base + (int) (set & 0xFF)];
+            }
+            return next;
+        }
+    }
+
+    private static final class MultiWord extends BitParallelNfa {
+        // Above this many table bytes per symbol, successor rows are ORed state by state instead
+        private static final int MAX_TABLE_BYTES = 512 * 1024;
+
+        private final int words;
+        private final boolean chunked;
+        // chunked: successors[symbol][((chunk * 256) + byte) * words + w], union mask of the states in that byte
+        // otherwise: successors[symbol][state * words + w], successor mask of one state
+        private final long[][] successors;
+        private final long[] initial;
+        private final long[] finals;
+
+        private MultiWord(CompactAutomaton core) {
+            super(core);
+            int n = core.stateCount();
+            words = (n + 63) >>> 6;
+            int chunks = (n + 7) >>> 3;
+            chunked = (long) chunks * 256 * words * 8 <= MAX_TABLE_BYTES;
+            successors = new long[core.symbolCount()][];
+            for (int a = CompactAutomaton.EPS + 1; a < core.symbolCount(); a++) {
+                long[] rows = new long[n * words];
+                for (int s = 0; s < n; s++) {
+                    for (int e = core.outStart(s, a); e < core.outEnd(s, a); e++) {
+                        int target = core.outTarget(e);
+                        rows[s * words + (target >>> 6)] |= 1L << target;
+                    }
+                }
+                successors[a] = chunked ? chunkTable(rows, n, chunks) : rows;
+            }
+            initial = new long[words];
+            for (int i = 0; i < core.initialStateCount(); i++) {
+                int state = core.initialState(i);
+                initial[state >>> 6] |= 1L << state;
+            }
+            finals = new long[words];
+            for (int s = 0; s < n; s++) {
+                if (core.isFinal(s)) {
+                    finals[s >>> 6] |= 1L << s;
+                }
+            }
+        }
+
+        private long[] chunkTable(long[] rows, int n, int chunks) {
+            long[] table = new long[chunks * 256 * words];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                for (int b = 1; b < 256; b++) {
+                    int high = 31 - Integer.numberOfLeadingZeros(b);
+                    int state = chunk * 8 + high;
+                    int entry = (chunk * 256 + b) * words;
+                    int smaller = (chunk * 256 + (b ^ (1 << high))) * words;
+                    for (int w = 0; w < words; w++) {
+                        table[entry + w] = table[smaller + w] | (state < n ? rows[state * words + w] : 0);
+                    }
+                }
+            }
+            return table;
+        }
+
+        @Override
+        public boolean isSingleWord() {
+            return false;
+        }
+
+        // Two buffers per call, swapped at every step
+        @Override
+        boolean run(int length, IntUnaryOperator symbolAt) {
+            long[] active = initial.clone();
+            long[] next = new long[words];
+            for (int i = 0; i < length; i++) {
+                int symbol = symbolAt.applyAsInt(i);
+                if (symbol < 0 || !step(successors[symbol], active, next)) {
+                    return false;
+                }
+                long[] swap = active;
+                active = next;
+                next = swap;
+            }
+            for (int w = 0; w < words; w++) {
+                if ((active[w] & finals[w]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Fills next with the successors of active; false when it is empty
+        private boolean step(long[] table, long[] active, long[] next) {
+            int words = this.words;
+            Arrays.fill(next, 0);
+            for (int w = 0; w < words; w++) {
+                long set = active[w];
+                if (chunked) {
+                    for (int base = w * 8 * 256; set != 0; base += 256, set >>>= 8) {
+                        int b = (int) (set & 0xFF);
+                        if (b != 0) {
+                            int entry = (base + b) * words;
+                            for (int v = 0; v < words; v++) {
+                                next[v] |= table[entry + v];
+                            }
+                        }
+                    }
+                } else {
+                    while (set != 0) {
+                        int row = ((w << 6) + Long.numberOfTrailingZeros(set)) * words;
+                        for (int v = 0; v < words; v++) {
+                            next[v] |= table[row + v];
+                        }
+                        set &= set - 1;
+                    }
+                }
+            }
+            long any = 0;
+            for (long word : next) {
+                any |= word;
+            }
+            return any != 0;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.CharPartition;
+import com.novytech.university.automata.CharTable;
+import com.novytech.university.automata.StateType;
+import com.novytech.university.automata.Symbol;
+import com.novytech.university.superautomata.SuperAutomaton;
+import com.novytech.university.superautomata.SuperState;
+import com.novytech.university.superautomata.SuperTransition;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+// Immutable table-driven form of a SuperAutomaton. Symbols with identical columns share one class,
+// the table is indexed by state * classCount + class and holds the target state or DEAD.
+// Matching only reads final arrays, so one instance can serve any number of threads.
+public final class CompiledDfa implements DfaTable {
+    // Inputs in flight at once in acceptsAll, one local per lane
+    private static final int LANES = 4;
+
+    private final int stateCount;
+    private final int classCount;
+    private final int[] table;
+    private final long[] finals;
+    // Pattern ids accepted in state s are patternIds[patternOffsets[s] .. patternOffsets[s + 1])
+    private final int[] patternOffsets;
+    private final int[] patternIds;
+
+    private final Symbol[] symbols;
+    private final int[] symbolClasses;
+    // Class of every char a symbol covers, DEAD for other chars; charClasses is its dense part
+    private final CharTable chars;
+    private final int[] charClasses;
+
+    // Built on first lookup and published whole through the volatile write
+    private volatile Map<Symbol, Integer> symbolIds;
+
+    private CompiledDfa(int stateCount, int classCount, int[] table, long[] finals, int[] patternOffsets, int[] patternIds,
+                        Symbol[] symbols, int[] symbolClasses) {
+        this.stateCount = stateCount;
+        this.classCount = classCount;
+        this.table = table;
+        this.finals = finals;
+        this.patternOffsets = patternOffsets;
+        this.patternIds = patternIds;
+        this.symbols = symbols;
+        this.symbolClasses = symbolClasses;
+        this.chars = CharTable.of(symbols, symbolClasses, DEAD);
+        this.charClasses = chars.dense();
+    }
+
+    @Override
+    public int stateCount() {
+        return stateCount;
+    }
+
+    public int classCount() {
+        return classCount;
+    }
+
+    public int symbolCount() {
+        return symbols.length;
+    }
+
+    public Symbol symbol(int symbol) {
+        return symbols[symbol];
+    }
+
+    @Override
+    public int initialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return (finals[state >>> 6] & (1L << state)) != 0;
+    }
+
+    // Sorted ids of the patterns accepted in state, empty unless built from a union automaton
+    public int[] patterns(int state) {
+        return Arrays.copyOfRange(patternIds, patternOffsets[state], patternOffsets[state + 1]);
+    }
+
+    @Override
+    public int step(int state, int symbolClass) {
+        return table[state * classCount + symbolClass];
+    }
+
+    public int classOfSymbol(int symbol) {
+        return symbolClasses[symbol];
+    }
+
+    @Override
+    public int classOf(char c) {
+        return chars.get(c);
+    }
+
+    // Chars at or above this limit have no class
+    int charClassLimit() {
+        return chars.limit();
+    }
+
+    // -1 when unknown. The symbols are the character classes determinization split the alphabet into, so a char
+    // symbol that is not one of them resolves to the class holding its chars, see CharPartition.classIndex
+    public int symbolId(Symbol symbol) {
+        if (symbolIds == null) {
+            Map<Symbol, Integer> ids = new HashMap<>(symbols.length * 2);
+            for (int i = 0; i < symbols.length; i++) {
+                ids.put(symbols[i], i);
+            }
+            symbolIds = ids;
+        }
+        Integer id = symbolIds.get(symbol);
+        return id != null ? id : CharPartition.classIndex(symbols, symbol);
+    }
+
+    // Symbols are ids of this table's symbols, as returned by symbolId
+    public boolean accepts(int[] symbols) {
+        int[] table = this.table;
+        int[] symbolClasses = this.symbolClasses;
+        int classCount = this.classCount;
+        int state = 0;
+        for (int symbol : symbols) {
+            if (symbol < 0 || symbol >= symbolClasses.length) {
+                return false;
+            }
+            state = table[state * classCount + symbolClasses[symbol]];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return isFinal(state);
+    }
+
+    // Every char is read as the symbol covering it: the single-character symbol with the same text or a range
+    public boolean accepts(CharSequence input) {
+        int[] table = this.table;
+        int[] charClasses = this.charClasses;
+        int classCount = this.classCount;
+        int state = 0;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            int symbolClass = c < charClasses.length ? charClasses[c] : chars.sparse(c);
+            if (symbolClass == DEAD) {
+                return false;
+            }
+            state = table[state * classCount + symbolClass];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return isFinal(state);
+    }
+
+    // Bit i is set when inputs.get(i) is accepted, as by accepts(CharSequence). Every input is a chain of dependent
+    // table loads, so inputs are run LANES at a time in lockstep over their common length: the loads of different
+    // lanes are independent and their cache misses overlap. Tails, and lanes left once one dies, run one by one.
+    public BitSet acceptsAll(List<? extends CharSequence> inputs) {
+        int[] table = this.table;
+        int classCount = this.classCount;
+        BitSet accepted = new BitSet(inputs.size());
+        int i = 0;
+        for (; i + LANES <= inputs.size(); i += LANES) {
+            CharSequence input0 = inputs.get(i);
+            CharSequence input1 = inputs.get(i + 1);
+            CharSequence input2 = inputs.get(i + 2);
+            CharSequence input3 = inputs.get(i + 3);
+            int common = Math.min(Math.min(input0.length(), input1.length()), Math.min(input2.length(), input3.length()));
+            int state0 = 0;
+            int state1 = 0;
+            int state2 = 0;
+            int state3 = 0;
+            int position = 0;
+            for (; position < common; position++) {
+                int class0 = charClass(input0.charAt(position));
+                int class1 = charClass(input1.charAt(position));
+                int class2 = charClass(input2.charAt(position));
+                int class3 = charClass(input3.charAt(position));
+                if ((class0 | class1 | class2 | class3) < 0) {
+                    break;
+                }
+                state0 = table[state0 * classCount + class0];
+                state1 = table[state1 * classCount + class1];
+                state2 = table[state2 * classCount + class2];
+                state3 = table[state3 * classCount + class3];
+                if ((state0 | state1 | state2 | state3) < 0) {
+                    position++;
+                    break;
+                }
+            }
+            accepted.set(i, accepts(input0, position, state0));
+            accepted.set(i + 1, accepts(input1, position, state1));
+            accepted.set(i + 2, accepts(input2, position, state2));
+            accepted.set(i + 3, accepts(input3, position, state3));
+        }
+        for (; i < inputs.size(); i++) {
+            accepted.set(i, accepts(inputs.get(i), 0, 0));
+        }
+        return accepted;
+    }
+
+    // Continues a run that reached state before input[from]
+    private boolean accepts(CharSequence input, int from, int state) {
+        int[] table = this.table;
+        int classCount = this.classCount;
+        for (int i = from, length = input.length(); i < length && state != DEAD; i++) {
+            int symbolClass = charClass(input.charAt(i));
+            state = symbolClass == DEAD ? DEAD : table[state * classCount + symbolClass];
+        }
+        return state != DEAD && isFinal(state);
+    }
+
+    private int charClass(char c) {
+        return c < charClasses.length ? charClasses[c] : chars.sparse(c);
+    }
+
+    // Ids of every pattern whose language contains the whole input, in a single pass
+    public int[] matchingPatterns(CharSequence input) {
+        int[] table = this.table;
+        int[] charClasses = this.charClasses;
+        int classCount = this.classCount;
+        int state = 0;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            int symbolClass = c < charClasses.length ? charClasses[c] : chars.sparse(c);
+            if (symbolClass == DEAD) {
+                return new int[0];
+            }
+            state = table[state * classCount + symbolClass];
+            if (state == DEAD) {
+                return new int[0];
+            }
+        }
+        return patterns(state);
+    }
+
+    // FACTORIES
+    public static CompiledDfa of(SuperAutomaton superAutomaton) {
+        List<SuperState> states = superAutomaton.getStates();
+        Map<SuperState, Integer> stateIds = new IdentityHashMap<>();
+        for (SuperState state : states) {
+            stateIds.put(state, stateIds.size());
+        }
+
+        Map<Symbol, Integer> symbolIds = new LinkedHashMap<>();
+        for (SuperTransition transition : superAutomaton.getTransitions()) {
+            symbolIds.putIfAbsent(transition.getActivator(), symbolIds.size());
+        }
+        Symbol[] symbols = symbolIds.keySet().toArray(new Symbol[0]);
+
+        int[][] columns = new int[symbols.length][states.size()];
+        for (int[] column : columns) {
+            Arrays.fill(column, DEAD);
+        }
+        for (SuperTransition transition : superAutomaton.getTransitions()) {
+            columns[symbolIds.get(transition.getActivator())][stateIds.get(transition.getSource())] = stateIds.get(transition.getTarget());
+        }
+
+        // Alphabet equivalence classes: one class per distinct column. A wrapped IntBuffer hashes and compares
+        // the column's contents without boxing a target per state.
+        Map<IntBuffer, Integer> classes = new HashMap<>();
+        int[] symbolClasses = new int[symbols.length];
+        List<int[]> classColumns = new ArrayList<>();
+        for (int a = 0; a < symbols.length; a++) {
+            IntBuffer signature = IntBuffer.wrap(columns[a]);
+            Integer symbolClass = classes.get(signature);
+            if (symbolClass == null) {
+                symbolClass = classColumns.size();
+                classes.put(signature, symbolClass);
+                classColumns.add(columns[a]);
+            }
+            symbolClasses[a] = symbolClass;
+        }
+
+        int classCount = Math.max(1, classColumns.size());
+        int[] table = new int[states.size() * classCount];
+        Arrays.fill(table, DEAD);
+        for (int c = 0; c < classColumns.size(); c++) {
+            int[] column = classColumns.get(c);
+            for (int s = 0; s < column.length; s++) {
+                table[s * classCount + c] = column[s];
+            }
+        }
+
+        long[] finals = new long[(states.size() + 63) >>> 6];
+        for (int s = 0; s < states.size(); s++) {
+            if (states.get(s).getType() == StateType.FINAL) {
+                finals[s >>> 6] |= 1L << s;
+            }
+        }
+
+        int[] patternOffsets = new int[states.size() + 1];
+        for (int s = 0; s < states.size(); s++) {
+            patternOffsets[s + 1] = patternOffsets[s] + states.get(s).getPatterns().cardinality();
+        }
+        int[] patternIds = new int[patternOffsets[states.size()]];
+        for (int s = 0; s < states.size(); s++) {
+            BitSet patterns = states.get(s).getPatterns();
+            for (int p = patterns.nextSetBit(0), i = patternOffsets[s]; p >= 0; p = patterns.nextSetBit(p + 1), i++) {
+                patternIds[i] = p;
+            }
+        }
+
+        return new CompiledDfa(states.size(), classCount, table, finals, patternOffsets, patternIds, symbols, symbolClasses);
+    }
+}
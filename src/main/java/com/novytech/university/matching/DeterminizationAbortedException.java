@@ -0,0 +1,16 @@
+package com.novytech.university.matching;
+
+import lombok.Getter;
+
+// Thrown instead of an OutOfMemoryError when a budgeted determinization runs out of room
+@Getter
+public class DeterminizationAbortedException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final DeterminizationProgress progress;
+
+    public DeterminizationAbortedException(String reason, DeterminizationProgress progress) {
+        super("Cannot determinize: " + reason + " after " + progress);
+        this.progress = progress;
+    }
+}
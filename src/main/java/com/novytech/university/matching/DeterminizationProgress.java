@@ -0,0 +1,26 @@
+package com.novytech.university.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@Getter
+@AllArgsConstructor
+public class DeterminizationProgress implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Superstates are discovered when first reached and expanded once their transitions are recorded
+    private final int discoveredStates;
+    private final int expandedStates;
+    private final long transitions;
+    // Off-heap bytes held in direct buffers and in the spill file at the end of the run, reusable segments included
+    private final long memoryBytes;
+    private final long spilledBytes;
+
+    @Override
+    public String toString() {
+        return expandedStates + " of " + discoveredStates + " superstates expanded, " + transitions + " transitions, "
+                + memoryBytes + " bytes in memory, " + spilledBytes + " bytes spilled";
+    }
+}
@@ -0,0 +1,199 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Versioned on-disk form of a compiled DFA, laid out so that MappedDfa can run straight over the mapped file.
+//
+// Little-endian, every section starts at a multiple of 8:
+//     header     magic "DFA1", version, state count, class count, symbol count, flags, source fingerprint,
+//                CRC32 of the whole file read with this field as zero, and the offsets of the sections below
+//     symbols    per symbol: class, UTF-8 length, UTF-8 bytes padded to 4
+//     chars      class of every char below the limit, DEAD for the rest
+//     table      state * classCount + class -> target or DEAD
+//     finals     final-state bitset as longs
+public final class DfaFile {
+    static final int MAGIC = 0x31414644;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+
+    static final int FLAG_MINIMIZED = 1;
+
+    // Header layout
+    static final int STATE_COUNT = 8;
+    static final int CLASS_COUNT = 12;
+    static final int SYMBOL_COUNT = 16;
+    static final int FLAGS = 20;
+    static final int FINGERPRINT = 24;
+    static final int CHECKSUM = 32;
+    static final int SYMBOLS_OFFSET = 40;
+    static final int CHARS_OFFSET = 44;
+    static final int CHAR_LIMIT = 48;
+    static final int TABLE_OFFSET = 52;
+    static final int FINALS_OFFSET = 56;
+
+    private DfaFile() {}
+
+    public static void write(SuperAutomaton superAutomaton, Path file, long sourceFingerprint) throws IOException {
+        write(CompiledDfa.of(superAutomaton), file, sourceFingerprint, false);
+    }
+
+    // The file is written to a fresh temporary file next to it and moved into place, so readers never map a partial
+    // file and concurrent writers of the same file never share one
+    public static void write(CompiledDfa dfa, Path file, long sourceFingerprint, boolean minimized) throws IOException {
+        byte[][] names = new byte[dfa.symbolCount()][];
+        long symbolsSize = 0;
+        for (int a = 0; a < names.length; a++) {
+            names[a] = dfa.symbol(a).getSymbol().getBytes(StandardCharsets.UTF_8);
+            symbolsSize += 8 + align(names[a].length, 4);
+        }
+        long symbolsOffset = HEADER_SIZE;
+        long charsOffset = align(symbolsOffset + symbolsSize, 8);
+        long tableOffset = align(charsOffset + 4L * dfa.charClassLimit(), 8);
+        long finalsOffset = align(tableOffset + 4L * dfa.stateCount() * dfa.classCount(), 8);
+        long size = finalsOffset + 8L * ((dfa.stateCount() + 63) >>> 6);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot write DFA file: " + size + " bytes exceed the 2 GB mapping limit");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_SIZE);
+        for (int a = 0; a < names.length; a++) {
+            buffer.putInt(dfa.classOfSymbol(a)).putInt(names[a].length).put(names[a]);
+            buffer.position((int) align(buffer.position(), 4));
+        }
+        buffer.position((int) charsOffset);
+        for (int c = 0; c < dfa.charClassLimit(); c++) {
+            buffer.putInt(dfa.classOf((char) c));
+        }
+        buffer.position((int) tableOffset);
+        for (int s = 0; s < dfa.stateCount(); s++) {
+            for (int c = 0; c < dfa.classCount(); c++) {
+                buffer.putInt(dfa.step(s, c));
+            }
+        }
+        buffer.position((int) finalsOffset);
+        long word = 0;
+        for (int s = 0; s < dfa.stateCount(); s++) {
+            if (dfa.isFinal(s)) {
+                word |= 1L << s;
+            }
+            if ((s & 63) == 63 || s == dfa.stateCount() - 1) {
+                buffer.putLong(word);
+                word = 0;
+            }
+        }
+
+        putHeader(buffer, dfa.stateCount(), dfa.classCount(), dfa.symbolCount(), minimized ? FLAG_MINIMIZED : 0, sourceFingerprint,
+                (int) symbolsOffset, (int) charsOffset, dfa.charClassLimit(), (int) tableOffset, (int) finalsOffset);
+        buffer.putLong(CHECKSUM, checksum(buffer));
+
+        Path temporary = temporary(file);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Everything but the checksum, which is left as is
+    static void putHeader(ByteBuffer buffer, int stateCount, int classCount, int symbolCount, int flags, long sourceFingerprint,
+                          int symbolsOffset, int charsOffset, int charLimit, int tableOffset, int finalsOffset) {
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(STATE_COUNT, stateCount)
+                .putInt(CLASS_COUNT, classCount)
+                .putInt(SYMBOL_COUNT, symbolCount)
+                .putInt(FLAGS, flags)
+                .putLong(FINGERPRINT, sourceFingerprint)
+                .putInt(SYMBOLS_OFFSET, symbolsOffset)
+                .putInt(CHARS_OFFSET, charsOffset)
+                .putInt(CHAR_LIMIT, charLimit)
+                .putInt(TABLE_OFFSET, tableOffset)
+                .putInt(FINALS_OFFSET, finalsOffset);
+    }
+
+    // Empty and uniquely named in the target's directory, so the final move stays within one file system
+    static Path temporary(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        return Files.createTempFile(directory, file.getFileName().toString() + ".", ".tmp");
+    }
+
+    // Maps a cached DFA for the source, rebuilding and rewriting the file when it is missing, corrupt or stale
+    public static MappedDfa loadOrBuild(Path file, CompactAutomaton source, boolean minimize) throws IOException {
+        long fingerprint = fingerprint(source);
+        if (Files.exists(file)) {
+            try {
+                MappedDfa cached = MappedDfa.open(file);
+                if (cached.getSourceFingerprint() == fingerprint && cached.isMinimized() == minimize) {
+                    return cached;
+                }
+            } catch (IllegalArgumentException corrupt) {
+                // fall through and rebuild
+            }
+        }
+        SuperAutomaton superAutomaton = SuperAutomaton.fromAutomaton(source.eliminateEps().trim());
+        if (minimize) {
+            superAutomaton = superAutomaton.minimize().getAutomaton();
+        }
+        write(CompiledDfa.of(superAutomaton), file, fingerprint, minimize);
+        return MappedDfa.open(file);
+    }
+
+    // Stable 64-bit hash of names, initial and final states and transitions; changes whenever the NFA does
+    public static long fingerprint(CompactAutomaton automaton) {
+        long hash = mix(automaton.stateCount(), automaton.symbolCount());
+        for (int s = 0; s < automaton.stateCount(); s++) {
+            hash = mix(hash, automaton.stateName(s).hashCode());
+            hash = mix(hash, automaton.isFinal(s) ? 1 : 0);
+            for (int e = automaton.outStart(s); e < automaton.outEnd(s); e++) {
+                hash = mix(hash, ((long) automaton.outSymbol(e) << 32) | automaton.outTarget(e));
+            }
+        }
+        for (int a = 0; a < automaton.symbolCount(); a++) {
+            hash = mix(hash, automaton.symbol(a).getSymbol().hashCode());
+        }
+        for (int state : automaton.initialStates()) {
+            hash = mix(hash, state);
+        }
+        return hash;
+    }
+
+    // CRC32 of the whole file with the checksum field read as zero, so the header is covered as well
+    static long checksum(ByteBuffer file) {
+        CRC32 crc = new CRC32();
+        ByteBuffer part = file.duplicate();
+        part.limit(CHECKSUM).position(0);
+        crc.update(part);
+        crc.update(new byte[8]);
+        part.limit(file.capacity()).position(CHECKSUM + 8);
+        crc.update(part);
+        return crc.getValue();
+    }
+
+    private static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    static long align(long offset, int alignment) {
+        return (offset + alignment - 1) & -alignment;
+    }
+}
@@ -0,0 +1,18 @@
+package com.novytech.university.matching;
+
+// Read-only view of a deterministic transition table, shared by the matchers
+public interface DfaTable {
+    int DEAD = -1;
+
+    int stateCount();
+
+    int initialState();
+
+    boolean isFinal(int state);
+
+    // Target state or DEAD
+    int step(int state, int symbolClass);
+
+    // DEAD when no symbol has this char as its text
+    int classOf(char c);
+}
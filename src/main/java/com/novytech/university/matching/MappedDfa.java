@@ -0,0 +1,200 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.Symbol;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// DfaTable over a memory-mapped DfaFile. Nothing is deserialized: lookups read the mapping directly,
+// so opening costs a header check plus, when asked for, one checksum pass over the file.
+public final class MappedDfa implements DfaTable {
+    private final ByteBuffer file;
+    private final int stateCount;
+    private final int classCount;
+    private final int symbolCount;
+    private final int charLimit;
+    private final IntBuffer charClasses;
+    private final IntBuffer table;
+    private final LongBuffer finals;
+
+    private @Getter final long sourceFingerprint;
+    private @Getter final boolean minimized;
+
+    // Keyed by symbol text, which the file stores for plain and range symbols alike
+    private volatile Map<String, Integer> symbolClasses;
+
+    private MappedDfa(ByteBuffer file) {
+        this.file = file;
+        this.stateCount = file.getInt(DfaFile.STATE_COUNT);
+        this.classCount = file.getInt(DfaFile.CLASS_COUNT);
+        this.symbolCount = file.getInt(DfaFile.SYMBOL_COUNT);
+        this.charLimit = file.getInt(DfaFile.CHAR_LIMIT);
+        this.sourceFingerprint = file.getLong(DfaFile.FINGERPRINT);
+        this.minimized = (file.getInt(DfaFile.FLAGS) & DfaFile.FLAG_MINIMIZED) != 0;
+        this.charClasses = section(file, DfaFile.CHARS_OFFSET).asIntBuffer();
+        this.table = section(file, DfaFile.TABLE_OFFSET).asIntBuffer();
+        this.finals = section(file, DfaFile.FINALS_OFFSET).asLongBuffer();
+    }
+
+    public static MappedDfa open(Path path) throws IOException {
+        return open(path, true);
+    }
+
+    // Skipping the checksum keeps start-up independent of the table size, for files that are trusted
+    public static MappedDfa open(Path path, boolean verifyChecksum) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < DfaFile.HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Cannot open DFA file " + path + ": bad size " + channel.size());
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer file = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (file.getInt(0) != DfaFile.MAGIC) {
+            throw new IllegalArgumentException("Cannot open DFA file " + path + ": bad magic");
+        }
+        if (file.getInt(4) != DfaFile.VERSION) {
+            throw new IllegalArgumentException("Cannot open DFA file " + path + ": unsupported version " + file.getInt(4));
+        }
+        if (verifyChecksum && DfaFile.checksum(file) != file.getLong(DfaFile.CHECKSUM)) {
+            throw new IllegalArgumentException("Cannot open DFA file " + path + ": checksum mismatch");
+        }
+        long expectedSize = (long) file.getInt(DfaFile.FINALS_OFFSET) + 8L * ((file.getInt(DfaFile.STATE_COUNT) + 63) >>> 6);
+        if (expectedSize != file.capacity()) {
+            throw new IllegalArgumentException("Cannot open DFA file " + path + ": truncated");
+        }
+        if (!hasConsistentLayout(file)) {
+            throw new IllegalArgumentException("Cannot open DFA file " + path + ": inconsistent header");
+        }
+        return new MappedDfa(file);
+    }
+
+    @Override
+    public int stateCount() {
+        return stateCount;
+    }
+
+    public int classCount() {
+        return classCount;
+    }
+
+    @Override
+    public int initialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return (finals.get(state >>> 6) & (1L << state)) != 0;
+    }
+
+    @Override
+    public int step(int state, int symbolClass) {
+        return table.get(state * classCount + symbolClass);
+    }
+
+    @Override
+    public int classOf(char c) {
+        return c < charLimit ? charClasses.get(c) : DEAD;
+    }
+
+    // DEAD when the file has no such symbol; the symbol table is decoded on first use. A char symbol that is
+    // not one of the stored classes resolves through the char table when all of its chars share a class
+    public int classOf(Symbol symbol) {
+        if (symbolClasses == null) {
+            symbolClasses = decodeSymbols();
+        }
+        Integer symbolClass = symbolClasses.get(symbol.getSymbol());
+        return symbolClass != null ? symbolClass : charsClass(symbol);
+    }
+
+    private int charsClass(Symbol symbol) {
+        int[] ranges = symbol.charRanges();
+        if (ranges.length == 0) {
+            return DEAD;
+        }
+        int symbolClass = classOf((char) ranges[0]);
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int c = ranges[i]; c <= ranges[i + 1]; c++) {
+                if (classOf((char) c) != symbolClass) {
+                    throw new IllegalArgumentException("Cannot look up symbol " + symbol.getSymbol()
+                            + ": its chars span several character classes, match the chars instead");
+                }
+            }
+        }
+        return symbolClass;
+    }
+
+    // Every char is read as the single-character symbol with the same text
+    public boolean accepts(CharSequence input) {
+        int state = 0;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            int symbolClass = classOf(input.charAt(i));
+            if (symbolClass == DEAD) {
+                return false;
+            }
+            state = table.get(state * classCount + symbolClass);
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return isFinal(state);
+    }
+
+    private Map<String, Integer> decodeSymbols() {
+        Map<String, Integer> classes = new HashMap<>(symbolCount * 2);
+        int position = file.getInt(DfaFile.SYMBOLS_OFFSET);
+        byte[] name = new byte[0];
+        for (int a = 0; a < symbolCount; a++) {
+            int symbolClass = file.getInt(position);
+            int length = file.getInt(position + 4);
+            if (name.length < length) {
+                name = new byte[length];
+            }
+            ByteBuffer bytes = file.duplicate();
+            bytes.position(position + 8);
+            bytes.get(name, 0, length);
+            classes.put(new String(name, 0, length, StandardCharsets.UTF_8), symbolClass);
+            position += 8 + ((length + 3) & -4);
+        }
+        return classes;
+    }
+
+    // Sections in order, aligned and large enough for the counts, so lookups stay inside their section
+    private static boolean hasConsistentLayout(ByteBuffer file) {
+        long stateCount = file.getInt(DfaFile.STATE_COUNT);
+        long classCount = file.getInt(DfaFile.CLASS_COUNT);
+        long charLimit = file.getInt(DfaFile.CHAR_LIMIT);
+        long symbolsOffset = file.getInt(DfaFile.SYMBOLS_OFFSET);
+        long charsOffset = file.getInt(DfaFile.CHARS_OFFSET);
+        long tableOffset = file.getInt(DfaFile.TABLE_OFFSET);
+        long finalsOffset = file.getInt(DfaFile.FINALS_OFFSET);
+        if (stateCount < 1 || classCount < 0 || file.getInt(DfaFile.SYMBOL_COUNT) < 0 || charLimit < 0 || charLimit > Character.MAX_VALUE + 1) {
+            return false;
+        }
+        if ((charsOffset | tableOffset | finalsOffset) % 8 != 0) {
+            return false;
+        }
+        return symbolsOffset >= DfaFile.HEADER_SIZE && charsOffset >= symbolsOffset
+                && tableOffset >= charsOffset + 4 * charLimit
+                && finalsOffset >= tableOffset + 4 * stateCount * classCount;
+    }
+
+    private static ByteBuffer section(ByteBuffer file, int offsetField) {
+        ByteBuffer section = file.duplicate();
+        section.position(file.getInt(offsetField));
+        return section.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,99 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Matches an input against many patterns with one pass per union DFA instead of one per pattern.
+// Patterns are packed greedily, in order, into groups whose union determinizes within a superstate
+// budget, which keeps subset explosion between unrelated patterns in check. A union never has fewer superstates
+// than any part of it, so the largest group that fits is found by galloping and binary search: compiling
+// costs O(log g) determinizations per group of g patterns rather than one per pattern.
+public final class MultiPatternMatcher {
+    private final CompiledDfa[] groups;
+    private final int patternCount;
+
+    private MultiPatternMatcher(CompiledDfa[] groups, int patternCount) {
+        this.groups = groups;
+        this.patternCount = patternCount;
+    }
+
+    public int groupCount() {
+        return groups.length;
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    // Pattern ids are indexes into the list given to compile
+    public BitSet matches(CharSequence input) {
+        BitSet matched = new BitSet(patternCount);
+        for (CompiledDfa group : groups) {
+            for (int pattern : group.matchingPatterns(input)) {
+                matched.set(pattern);
+            }
+        }
+        return matched;
+    }
+
+    // Automata are not modified. A pattern that alone exceeds maxStatesPerGroup still gets its own group.
+    public static MultiPatternMatcher compile(List<Automaton> patterns, int maxStatesPerGroup) {
+        List<CompactAutomaton> cores = new ArrayList<>(patterns.size());
+        for (Automaton pattern : patterns) {
+            cores.add(CompactAutomaton.of(pattern));
+        }
+
+        List<CompiledDfa> groups = new ArrayList<>();
+        int first = 0;
+        while (first < cores.size()) {
+            // Group [first, fits) is known to fit, [first, tooLarge) is known not to
+            int fits = first + 1;
+            int tooLarge = cores.size() + 1;
+            SuperAutomaton accepted = SuperAutomaton.fromAutomaton(union(cores, first, fits).eliminateEps().trim());
+            for (int size = 2; fits < cores.size(); size *= 2) {
+                int end = Math.min(first + size, cores.size());
+                SuperAutomaton attempt = determinize(cores, first, end, maxStatesPerGroup);
+                if (attempt == null) {
+                    tooLarge = end;
+                    break;
+                }
+                fits = end;
+                accepted = attempt;
+            }
+            while (tooLarge - fits > 1) {
+                int end = (fits + tooLarge) >>> 1;
+                SuperAutomaton attempt = determinize(cores, first, end, maxStatesPerGroup);
+                if (attempt == null) {
+                    tooLarge = end;
+                } else {
+                    fits = end;
+                    accepted = attempt;
+                }
+            }
+            groups.add(CompiledDfa.of(accepted.minimize().getAutomaton()));
+            first = fits;
+        }
+        return new MultiPatternMatcher(groups.toArray(new CompiledDfa[0]), patterns.size());
+    }
+
+    // null when the union of [from, to) needs more than maxStates superstates
+    private static SuperAutomaton determinize(List<CompactAutomaton> cores, int from, int to, int maxStates) {
+        try {
+            return SuperAutomaton.fromAutomaton(union(cores, from, to).eliminateEps().trim(), maxStates);
+        } catch (IllegalStateException overBudget) {
+            return null;
+        }
+    }
+
+    private static CompactAutomaton union(List<CompactAutomaton> cores, int from, int to) {
+        int[] patternIds = new int[to - from];
+        Arrays.setAll(patternIds, i -> from + i);
+        return CompactAutomaton.union(cores.subList(from, to), patternIds);
+    }
+}
@@ -0,0 +1,230 @@
+package com.novytech.university.matching;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-size segments outside the Java heap: direct buffers while the memory budget lasts, then slices of a
+// temporary spill file, mapped in large windows, while the disk budget lasts. Beyond both, allocation throws
+// BudgetExceeded. Released segments are kept for reuse rather than left to the GC, so the bytes counted against
+// the budgets are everything the arena holds and direct memory never exceeds the memory budget.
+final class OffHeapArena implements Closeable {
+    private static final int MIN_SEGMENT_SHIFT = 12;
+    private static final int MAX_SEGMENT_SHIFT = 20;
+    // One mapping per window keeps large disk budgets far below vm.max_map_count
+    private static final long MAX_SPILL_WINDOW = 1L << 26;
+
+    private final long memoryBudget;
+    private final long diskBudget;
+    private final Path spillDirectory;
+    private final int segmentShift;
+    private final long spillWindow;
+    private long memoryBytes;
+    private long spilledBytes;
+    private Path spillFile;
+    private FileChannel spill;
+    // Unused part of the current spill window, sliced into segments
+    private ByteBuffer window;
+    private final List<ByteBuffer> free = new ArrayList<>();
+
+    OffHeapArena(long memoryBudget, long diskBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.diskBudget = diskBudget;
+        this.spillDirectory = spillDirectory;
+        // Small enough that a structure never overshoots the budget by much, large enough to keep the segment lists short
+        int shift = 63 - Long.numberOfLeadingZeros(Math.max(memoryBudget / 64, 1));
+        this.segmentShift = Math.max(MIN_SEGMENT_SHIFT, Math.min(MAX_SEGMENT_SHIFT, shift));
+        this.spillWindow = Math.max(segmentSize(), Math.min(MAX_SPILL_WINDOW, diskBudget) & -segmentSize());
+    }
+
+    int segmentShift() {
+        return segmentShift;
+    }
+
+    int segmentSize() {
+        return 1 << segmentShift;
+    }
+
+    long memoryBytes() {
+        return memoryBytes;
+    }
+
+    long spilledBytes() {
+        return spilledBytes;
+    }
+
+    // Zeroed, whether fresh or reused
+    ByteBuffer allocate() throws IOException {
+        if (!free.isEmpty()) {
+            ByteBuffer segment = free.remove(free.size() - 1);
+            for (int i = 0; i < segment.capacity(); i += 8) {
+                segment.putLong(i, 0);
+            }
+            return segment;
+        }
+        int size = segmentSize();
+        if (memoryBytes + size <= memoryBudget) {
+            try {
+                ByteBuffer segment = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+                memoryBytes += size;
+                return segment;
+            } catch (OutOfMemoryError directMemoryExhausted) {
+                // -XX:MaxDirectMemorySize is below the budget; the spill file takes over
+            }
+        }
+        if (spilledBytes + size > diskBudget) {
+            throw new BudgetExceeded("memory budget of " + memoryBudget + " bytes and disk budget of " + diskBudget + " bytes exhausted");
+        }
+        if (window == null || !window.hasRemaining()) {
+            window = mapWindow();
+        }
+        // Windows are fresh file extensions, so their slices read as zero
+        ByteBuffer view = window.duplicate();
+        view.limit(view.position() + size);
+        ByteBuffer segment = view.slice().order(ByteOrder.nativeOrder());
+        window.position(view.limit());
+        spilledBytes += size;
+        return segment;
+    }
+
+    // The segments stay counted against the budgets and are handed out again by allocate
+    void release(List<ByteBuffer> segments) {
+        free.addAll(segments);
+        segments.clear();
+    }
+
+    private ByteBuffer mapWindow() throws IOException {
+        if (spill == null) {
+            spillFile = Files.createTempFile(spillDirectory, "dfa-spill", ".bin");
+            spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        try {
+            return spill.map(FileChannel.MapMode.READ_WRITE, spilledBytes, spillWindow);
+        } catch (IOException mapFailed) {
+            // Out of address space or mappings; as much a budget limit as a full disk
+            throw new BudgetExceeded("cannot map spill file beyond " + spilledBytes + " bytes: " + mapFailed.getMessage());
+        }
+    }
+
+    // Mapped windows stay valid until collected, but the file is unlinked here either way
+    @Override
+    public void close() throws IOException {
+        window = null;
+        free.clear();
+        if (spill != null) {
+            spill.close();
+            Files.deleteIfExists(spillFile);
+            spill = null;
+        }
+    }
+
+    static final class BudgetExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceeded(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // Growable byte sequence addressed by long offsets; values may straddle segment boundaries
+    static final class Bytes {
+        private final OffHeapArena arena;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        private long size;
+
+        Bytes(OffHeapArena arena) {
+            this.arena = arena;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void write(int b) throws IOException {
+            int shift = arena.segmentShift();
+            if ((size >>> shift) == segments.size()) {
+                segments.add(arena.allocate());
+            }
+            segments.get((int) (size >>> shift)).put((int) (size & (arena.segmentSize() - 1)), (byte) b);
+            size++;
+        }
+
+        // Unsigned LEB128
+        void writeVarint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        int read(long address) {
+            return segments.get((int) (address >>> arena.segmentShift())).get((int) (address & (arena.segmentSize() - 1))) & 0xFF;
+        }
+
+        Reader reader(long address) {
+            return new Reader(address);
+        }
+
+        final class Reader {
+            private long position;
+
+            private Reader(long position) {
+                this.position = position;
+            }
+
+            void seek(long address) {
+                position = address;
+            }
+
+            int varint() {
+                int value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = read(position++);
+                    value |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) {
+                        return value;
+                    }
+                }
+            }
+        }
+    }
+
+    // Growable array of longs, zero until set
+    static final class Longs {
+        private final OffHeapArena arena;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+
+        Longs(OffHeapArena arena) {
+            this.arena = arena;
+        }
+
+        long get(long index) {
+            int segment = (int) (index >>> (arena.segmentShift() - 3));
+            return segment < segments.size() ? segments.get(segment).getLong(offset(index)) : 0;
+        }
+
+        void set(long index, long value) throws IOException {
+            int segment = (int) (index >>> (arena.segmentShift() - 3));
+            while (segments.size() <= segment) {
+                segments.add(arena.allocate());
+            }
+            segments.get(segment).putLong(offset(index), value);
+        }
+
+        void release() {
+            arena.release(segments);
+        }
+
+        private int offset(long index) {
+            return (int) ((index << 3) & (arena.segmentSize() - 1));
+        }
+    }
+}
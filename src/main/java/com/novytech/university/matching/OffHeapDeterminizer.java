@@ -0,0 +1,377 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.CharTable;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.zip.CRC32;
+
+// Subset construction for NFAs whose DFA does not fit on the heap. Superstates are stored as delta-encoded
+// varint keys behind an open-addressing index, transitions as sparse rows, all in OffHeapArena segments:
+// direct buffers up to the memory budget, then a mapped spill file up to the disk budget. The DFA is
+// streamed into a DfaFile and mapped, so it never reaches the heap either. When both budgets run out the
+// run stops with a DeterminizationAbortedException carrying how far it got.
+// One determinization at a time per instance.
+public final class OffHeapDeterminizer {
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 10;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final long memoryBudget;
+    private final long diskBudget;
+    private final Path spillDirectory;
+    // Of the last successful run
+    private @Getter DeterminizationProgress lastProgress;
+
+    public OffHeapDeterminizer(long memoryBudget, long diskBudget, Path spillDirectory) {
+        if (memoryBudget < 0 || diskBudget < 0) {
+            throw new IllegalArgumentException("Cannot create determinizer: negative budget");
+        }
+        this.memoryBudget = memoryBudget;
+        this.diskBudget = diskBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    // Writes the DFA of an EPS-free core to file, numbered in BFS order like SuperAutomaton, and maps it
+    public MappedDfa determinize(CompactAutomaton core, Path file) throws IOException {
+        for (int s = 0; s < core.stateCount(); s++) {
+            if (core.outEnd(s, CompactAutomaton.EPS) > core.outStart(s, CompactAutomaton.EPS)) {
+                throw new IllegalArgumentException("Cannot determinize off-heap: state " + core.stateName(s) + " has EPS transitions");
+            }
+        }
+        // Overlapping range symbols are split into disjoint classes first, as in SuperAutomaton
+        CompactAutomaton nfa = core.partitioned();
+        try (OffHeapArena arena = new OffHeapArena(memoryBudget, diskBudget, spillDirectory)) {
+            Construction construction = new Construction(nfa, arena);
+            try {
+                construction.run();
+                construction.write(file, DfaFile.fingerprint(core));
+            } catch (OffHeapArena.BudgetExceeded exceeded) {
+                throw new DeterminizationAbortedException(exceeded.getMessage(), construction.progress());
+            }
+            lastProgress = construction.progress();
+        }
+        return MappedDfa.open(file);
+    }
+
+    private static final class Construction {
+        private final CompactAutomaton nfa;
+        private final OffHeapArena arena;
+        // Symbol a of the NFA is class a - 1 of the DFA, EPS has none
+        private final int classCount;
+
+        // Key of state s at keyAddresses[s]: size, then the sorted NFA states as gaps
+        private final OffHeapArena.Bytes keys;
+        private final OffHeapArena.Bytes.Reader keyReader;
+        private final OffHeapArena.Longs keyAddresses;
+        // Row of every expanded state in order: edge count, then (class, target) pairs
+        private final OffHeapArena.Bytes rows;
+        private final OffHeapArena.Longs finals;
+        // Slots hold hash << 32 | state + 1, zero when empty
+        private OffHeapArena.Longs index;
+        private long indexCapacity = INITIAL_INDEX_CAPACITY;
+
+        private int stateCount;
+        private int expanded;
+        private long transitions;
+
+        private final int[] mark;
+        private final int[] targets;
+        private final int[] source;
+        private final int[] row;
+        private int stamp;
+
+        private Construction(CompactAutomaton nfa, OffHeapArena arena) {
+            this.nfa = nfa;
+            this.arena = arena;
+            this.classCount = nfa.symbolCount() - 1;
+            this.keys = new OffHeapArena.Bytes(arena);
+            this.keyReader = keys.reader(0);
+            this.keyAddresses = new OffHeapArena.Longs(arena);
+            this.rows = new OffHeapArena.Bytes(arena);
+            this.finals = new OffHeapArena.Longs(arena);
+            this.index = new OffHeapArena.Longs(arena);
+            this.mark = new int[nfa.stateCount()];
+            this.targets = new int[nfa.stateCount()];
+            this.source = new int[nfa.stateCount()];
+            this.row = new int[2 * classCount];
+        }
+
+        private DeterminizationProgress progress() {
+            return new DeterminizationProgress(stateCount, expanded, transitions, arena.memoryBytes(), arena.spilledBytes());
+        }
+
+        private void run() throws IOException {
+            int[] initial = nfa.initialStates();
+            Arrays.sort(initial);
+            discover(initial, initial.length);
+
+            // State ids double as the BFS queue, as in SuperAutomaton
+            for (int next = 0; next < stateCount; next++) {
+                if ((next & 1023) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Determinization interrupted after " + next + " superstates");
+                }
+                int size = decode(keyAddresses.get(next));
+                int edges = 0;
+                for (int a = CompactAutomaton.EPS + 1; a < nfa.symbolCount(); a++) {
+                    int count = successors(size, a);
+                    if (count > 0) {
+                        row[2 * edges] = a - 1;
+                        row[2 * edges + 1] = discover(targets, count);
+                        edges++;
+                    }
+                }
+                rows.writeVarint(edges);
+                for (int i = 0; i < 2 * edges; i++) {
+                    rows.writeVarint(row[i]);
+                }
+                transitions += edges;
+                expanded++;
+            }
+        }
+
+        // Reads a key into source and returns its size
+        private int decode(long address) {
+            keyReader.seek(address);
+            int size = keyReader.varint();
+            int state = 0;
+            for (int i = 0; i < size; i++) {
+                state += keyReader.varint();
+                source[i] = state;
+            }
+            return size;
+        }
+
+        // Sorted successors of the decoded source on symbol, into targets
+        private int successors(int size, int symbol) {
+            stamp++;
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                for (int e = nfa.outStart(source[i], symbol); e < nfa.outEnd(source[i], symbol); e++) {
+                    int target = nfa.outTarget(e);
+                    if (mark[target] != stamp) {
+                        mark[target] = stamp;
+                        targets[count++] = target;
+                    }
+                }
+            }
+            Arrays.sort(targets, 0, count);
+            return count;
+        }
+
+        private int discover(int[] subset, int size) throws IOException {
+            int hash = hash(subset, size);
+            long slot = hash & (indexCapacity - 1);
+            for (long entry = index.get(slot); entry != 0; entry = index.get(slot)) {
+                if ((int) (entry >>> 32) == hash && matches((int) entry - 1, subset, size)) {
+                    return (int) entry - 1;
+                }
+                slot = (slot + 1) & (indexCapacity - 1);
+            }
+
+            int state = stateCount;
+            if (4L * (state + 1) * classCount > Integer.MAX_VALUE) {
+                throw new OffHeapArena.BudgetExceeded("DFA table over the 2 GB mapping limit of DfaFile");
+            }
+            keyAddresses.set(state, keys.size());
+            keys.writeVarint(size);
+            boolean isFinal = false;
+            for (int i = 0, previous = 0; i < size; previous = subset[i++]) {
+                keys.writeVarint(subset[i] - previous);
+                isFinal = isFinal || nfa.isFinal(subset[i]);
+            }
+            if (isFinal) {
+                finals.set(state >>> 6, finals.get(state >>> 6) | (1L << state));
+            }
+            index.set(slot, (long) hash << 32 | (state + 1));
+            stateCount++;
+            if (2L * stateCount > indexCapacity) {
+                grow();
+            }
+            return state;
+        }
+
+        private boolean matches(int state, int[] subset, int size) {
+            keyReader.seek(keyAddresses.get(state));
+            if (keyReader.varint() != size) {
+                return false;
+            }
+            for (int i = 0, previous = 0; i < size; previous = subset[i++]) {
+                if (keyReader.varint() != subset[i] - previous) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Hashes are kept in the slots, so growing never touches the keys
+        private void grow() throws IOException {
+            long capacity = indexCapacity * 2;
+            OffHeapArena.Longs grown = new OffHeapArena.Longs(arena);
+            for (long i = 0; i < indexCapacity; i++) {
+                long entry = index.get(i);
+                if (entry != 0) {
+                    long slot = (int) (entry >>> 32) & (capacity - 1);
+                    while (grown.get(slot) != 0) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    grown.set(slot, entry);
+                }
+            }
+            index.release();
+            index = grown;
+            indexCapacity = capacity;
+        }
+
+        private static int hash(int[] subset, int size) {
+            int hash = size;
+            for (int i = 0; i < size; i++) {
+                hash = 31 * hash + subset[i];
+            }
+            hash *= 0x9E3779B1;
+            return hash ^ (hash >>> 16);
+        }
+
+        // Same layout as DfaFile.write, streamed: the table is expanded row by row from the sparse log
+        private void write(Path file, long sourceFingerprint) throws IOException {
+            Symbol[] classSymbols = new Symbol[classCount];
+            int[] classes = new int[classCount];
+            byte[][] names = new byte[classCount][];
+            long symbolsSize = 0;
+            for (int c = 0; c < classCount; c++) {
+                classSymbols[c] = nfa.symbol(c + 1);
+                classes[c] = c;
+                names[c] = classSymbols[c].getSymbol().getBytes(StandardCharsets.UTF_8);
+                symbolsSize += 8 + DfaFile.align(names[c].length, 4);
+            }
+            CharTable chars = CharTable.of(classSymbols, classes, DfaTable.DEAD);
+
+            long symbolsOffset = DfaFile.HEADER_SIZE;
+            long charsOffset = DfaFile.align(symbolsOffset + symbolsSize, 8);
+            long tableOffset = DfaFile.align(charsOffset + 4L * chars.limit(), 8);
+            long finalsOffset = DfaFile.align(tableOffset + 4L * stateCount * classCount, 8);
+            long size = finalsOffset + 8L * ((stateCount + 63) >>> 6);
+            if (size > Integer.MAX_VALUE) {
+                throw new OffHeapArena.BudgetExceeded("DFA file of " + size + " bytes over the 2 GB mapping limit");
+            }
+
+            // Every header field is known up front, so the header goes first and the checksum is patched in last
+            ByteBuffer header = ByteBuffer.allocate(DfaFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            DfaFile.putHeader(header, stateCount, classCount, classCount, 0, sourceFingerprint,
+                    (int) symbolsOffset, (int) charsOffset, chars.limit(), (int) tableOffset, (int) finalsOffset);
+
+            Path temporary = DfaFile.temporary(file);
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    Sink sink = new Sink(channel);
+                    sink.put(header.array());
+                    for (int c = 0; c < classCount; c++) {
+                        sink.putInt(c).putInt(names[c].length).put(names[c]).pad(4);
+                    }
+                    sink.pad(8);
+                    for (int c = 0; c < chars.limit(); c++) {
+                        sink.putInt(chars.get((char) c));
+                    }
+                    sink.pad(8);
+                    int[] dense = new int[classCount];
+                    OffHeapArena.Bytes.Reader rowReader = rows.reader(0);
+                    for (int s = 0; s < stateCount; s++) {
+                        Arrays.fill(dense, DfaTable.DEAD);
+                        for (int edges = rowReader.varint(); edges > 0; edges--) {
+                            int symbolClass = rowReader.varint();
+                            dense[symbolClass] = rowReader.varint();
+                        }
+                        for (int target : dense) {
+                            sink.putInt(target);
+                        }
+                    }
+                    sink.pad(8);
+                    for (int word = 0; word < (stateCount + 63) >>> 6; word++) {
+                        sink.putLong(finals.get(word));
+                    }
+                    sink.flush();
+
+                    ByteBuffer checksum = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                    checksum.putLong(0, sink.crc.getValue());
+                    while (checksum.hasRemaining()) {
+                        channel.write(checksum, DfaFile.CHECKSUM + checksum.position());
+                    }
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    // Buffered little-endian writer for the whole file, checksummed on the way out
+    private static final class Sink {
+        private final FileChannel channel;
+        private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long position;
+
+        private Sink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private Sink putInt(int value) throws IOException {
+            reserve(4);
+            chunk.putInt(value);
+            position += 4;
+            return this;
+        }
+
+        private Sink putLong(long value) throws IOException {
+            reserve(8);
+            chunk.putLong(value);
+            position += 8;
+            return this;
+        }
+
+        private Sink put(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                reserve(1);
+                chunk.put(b);
+            }
+            position += bytes.length;
+            return this;
+        }
+
+        private Sink pad(int alignment) throws IOException {
+            while (position != DfaFile.align(position, alignment)) {
+                reserve(1);
+                chunk.put((byte) 0);
+                position++;
+            }
+            return this;
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (chunk.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            chunk.flip();
+            crc.update(chunk.array(), 0, chunk.limit());
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.novytech.university.matching;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Shared slot for an immutable matcher (CompactAutomaton, CompiledDfa, BitParallelNfa, ...).
+// Readers call current() once per match and keep using that snapshot, writers build the next snapshot
+// off to the side and swap it in; nobody locks, and a reader never sees a half-applied rule update.
+public final class SnapshotHolder<T> {
+    private final AtomicReference<T> current;
+
+    public SnapshotHolder(T initial) {
+        if (initial == null) {
+            throw new IllegalArgumentException("Cannot hold a null snapshot");
+        }
+        this.current = new AtomicReference<>(initial);
+    }
+
+    public T current() {
+        return current.get();
+    }
+
+    // Returns the snapshot that was replaced
+    public T swap(T next) {
+        if (next == null) {
+            throw new IllegalArgumentException("Cannot hold a null snapshot");
+        }
+        return current.getAndSet(next);
+    }
+
+    // Derives the next snapshot from the current one; retried if another writer swapped in between,
+    // so update must be free of side effects
+    public T update(UnaryOperator<T> update) {
+        T previous;
+        T next;
+        do {
+            previous = current.get();
+            next = update.apply(previous);
+            if (next == null) {
+                throw new IllegalArgumentException("Cannot hold a null snapshot");
+            }
+        } while (!current.compareAndSet(previous, next));
+        return next;
+    }
+}
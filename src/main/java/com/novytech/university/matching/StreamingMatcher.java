@@ -0,0 +1,174 @@
+package com.novytech.university.matching;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Runs a DFA over byte input in chunks with constant memory. Every byte is read as the single-character
+// symbol with the same Latin-1 text. The matcher is anchored at the start of the stream: it reports every
+// offset at which the bytes consumed so far form a word of the language, and stops reading once the DFA is dead.
+// State survives between feed calls, so input can arrive in arbitrary chunks. Not thread-safe.
+public class StreamingMatcher {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // Mapped windows stay well below the 2 GB limit of a single MappedByteBuffer
+    private static final long MAPPED_WINDOW = 256L * 1024 * 1024;
+
+    public interface AcceptListener {
+        // offset is the number of bytes consumed when the accepting state was entered
+        void onAccept(long offset);
+    }
+
+    private final DfaTable dfa;
+    private final int[] byteClasses = new int[256];
+    private final AcceptListener listener;
+
+    private @Getter int state;
+    private @Getter long position;
+    private @Getter long lastAcceptOffset;
+
+    private byte[] chunk;
+
+    public StreamingMatcher(DfaTable dfa) {
+        this(dfa, null);
+    }
+
+    public StreamingMatcher(DfaTable dfa, AcceptListener listener) {
+        this.dfa = dfa;
+        this.listener = listener;
+        for (int b = 0; b < byteClasses.length; b++) {
+            byteClasses[b] = dfa.classOf((char) b);
+        }
+        reset();
+    }
+
+    // Non-destructive: EPS elimination and determinization run on a compact copy
+    public static StreamingMatcher of(Automaton automaton, AcceptListener listener) {
+        return of(SuperAutomaton.fromAutomaton(CompactAutomaton.of(automaton).eliminateEps().trim()), listener);
+    }
+
+    public static StreamingMatcher of(SuperAutomaton superAutomaton, AcceptListener listener) {
+        return new StreamingMatcher(CompiledDfa.of(superAutomaton), listener);
+    }
+
+    public void reset() {
+        resume(dfa.initialState(), 0);
+    }
+
+    // Continue from a state and offset saved from an earlier run over the same table
+    public void resume(int state, long position) {
+        if (state != DfaTable.DEAD && (state < 0 || state >= dfa.stateCount())) {
+            throw new IllegalArgumentException("Cannot resume: state " + state + " is not in the table");
+        }
+        this.state = state;
+        this.position = position;
+        this.lastAcceptOffset = state != DfaTable.DEAD && dfa.isFinal(state) ? position : -1;
+        if (position == 0 && lastAcceptOffset == 0 && listener != null) {
+            listener.onAccept(0);
+        }
+    }
+
+    public boolean isDead() {
+        return state == DfaTable.DEAD;
+    }
+
+    public boolean isAccepting() {
+        return state != DfaTable.DEAD && dfa.isFinal(state);
+    }
+
+    // All feed methods return false once no further input can lead to acceptance
+    public boolean feed(byte[] bytes, int offset, int length) {
+        int current = state;
+        long consumed = position;
+        for (int i = offset, end = offset + length; i < end && current != DfaTable.DEAD; i++) {
+            current = advance(current, bytes[i], ++consumed);
+        }
+        state = current;
+        position = consumed;
+        return current != DfaTable.DEAD;
+    }
+
+    // Consumes the buffer up to its limit, or up to the byte that killed the DFA
+    public boolean feed(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int start = buffer.position();
+            long before = position;
+            boolean alive = feed(buffer.array(), buffer.arrayOffset() + start, buffer.remaining());
+            buffer.position(start + (int) (position - before));
+            return alive;
+        }
+        int current = state;
+        long consumed = position;
+        int i = buffer.position();
+        for (int end = buffer.limit(); i < end && current != DfaTable.DEAD; i++) {
+            current = advance(current, buffer.get(i), ++consumed);
+        }
+        buffer.position(i);
+        state = current;
+        position = consumed;
+        return current != DfaTable.DEAD;
+    }
+
+    public boolean feed(InputStream in) throws IOException {
+        byte[] buffer = chunk();
+        int read;
+        while (!isDead() && (read = in.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        return !isDead();
+    }
+
+    public boolean feed(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        while (!isDead() && channel.read(buffer) != -1) {
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        return !isDead();
+    }
+
+    // Maps the file window by window, so its content never lands on the heap
+    public boolean scan(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long from = 0; from < size && !isDead(); from += MAPPED_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(MAPPED_WINDOW, size - from));
+                feed(window);
+            }
+        }
+        return !isDead();
+    }
+
+    private int advance(int current, byte b, long consumed) {
+        int symbolClass = byteClasses[b & 0xFF];
+        if (symbolClass == DfaTable.DEAD) {
+            return DfaTable.DEAD;
+        }
+        int next = dfa.step(current, symbolClass);
+        if (next != DfaTable.DEAD && dfa.isFinal(next)) {
+            lastAcceptOffset = consumed;
+            if (listener != null) {
+                listener.onAccept(consumed);
+            }
+        }
+        return next;
+    }
+
+    private byte[] chunk() {
+        if (chunk == null) {
+            chunk = new byte[CHUNK_SIZE];
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,9 @@
+package com.novytech.university.metrics;
+
+// Receives one sample per completed phase of EPS elimination or determinization
+public interface MetricsListener {
+    // Default listener; instrumented code checks for it and skips all measuring
+    MetricsListener NONE = metrics -> {};
+
+    void onPhase(PhaseMetrics metrics);
+}
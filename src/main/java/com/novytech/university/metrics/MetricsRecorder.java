@@ -0,0 +1,54 @@
+package com.novytech.university.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Thread-safe listener that keeps per-phase totals, readable through the Java API or as an MXBean
+public class MetricsRecorder implements MetricsListener, MetricsRecorderMXBean {
+    private final Map<String, PhaseTotals> phases = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void onPhase(PhaseMetrics metrics) {
+        phases.computeIfAbsent(metrics.getPhase(), phase -> new PhaseTotals()).add(metrics);
+    }
+
+    // Snapshot in first-seen phase order
+    @Override
+    public synchronized Map<String, PhaseTotals> getPhases() {
+        Map<String, PhaseTotals> snapshot = new LinkedHashMap<>();
+        phases.forEach((phase, totals) -> snapshot.put(phase, totals.copy()));
+        return snapshot;
+    }
+
+    @Override
+    public synchronized long getTotalNanos() {
+        return phases.values().stream().mapToLong(PhaseTotals::getTotalNanos).sum();
+    }
+
+    @Override
+    public synchronized void reset() {
+        phases.clear();
+    }
+
+    // Registers under com.novytech.university:type=Metrics,name=<name> on the platform MBean server
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.novytech.university:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean " + name, e);
+        }
+    }
+
+    public void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics MBean " + objectName, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.novytech.university.metrics;
+
+import java.util.Map;
+
+// JMX view of a MetricsRecorder; phases show up as tabular data keyed by phase name
+public interface MetricsRecorderMXBean {
+    Map<String, PhaseTotals> getPhases();
+
+    long getTotalNanos();
+
+    void reset();
+}
@@ -0,0 +1,20 @@
+package com.novytech.university.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// One measured phase. allocatedBytes is -1 when the JVM cannot report per-thread allocation,
+// counters that do not apply to a phase are 0
+@Getter
+@ToString
+@AllArgsConstructor
+public class PhaseMetrics {
+    private final String phase;
+    private final long wallNanos;
+    private final long allocatedBytes;
+    private final int queueHighWater;
+    private final int transitionsAdded;
+    private final int transitionsRemoved;
+    private final int superStates;
+}
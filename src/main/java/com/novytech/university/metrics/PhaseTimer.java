@@ -0,0 +1,46 @@
+package com.novytech.university.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Wall time and bytes allocated by the calling thread since start
+public final class PhaseTimer {
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final long startNanos;
+    private final long startBytes;
+
+    private PhaseTimer() {
+        this.startBytes = allocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static PhaseTimer start() {
+        return new PhaseTimer();
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    // -1 when allocation cannot be measured
+    public long allocatedBytes() {
+        long bytes = currentAllocatedBytes();
+        return bytes < 0 || startBytes < 0 ? -1 : bytes - startBytes;
+    }
+
+    private static long currentAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.novytech.university.metrics;
+
+import lombok.Getter;
+
+// Running totals of one phase across all recorded runs
+@Getter
+public class PhaseTotals {
+    private long runs;
+    private long totalNanos;
+    private long maxNanos;
+    private long allocatedBytes;
+    private int queueHighWater;
+    private long transitionsAdded;
+    private long transitionsRemoved;
+    private long superStates;
+
+    PhaseTotals() {}
+
+    private PhaseTotals(PhaseTotals other) {
+        runs = other.runs;
+        totalNanos = other.totalNanos;
+        maxNanos = other.maxNanos;
+        allocatedBytes = other.allocatedBytes;
+        queueHighWater = other.queueHighWater;
+        transitionsAdded = other.transitionsAdded;
+        transitionsRemoved = other.transitionsRemoved;
+        superStates = other.superStates;
+    }
+
+    void add(PhaseMetrics metrics) {
+        runs++;
+        totalNanos += metrics.getWallNanos();
+        maxNanos = Math.max(maxNanos, metrics.getWallNanos());
+        allocatedBytes += Math.max(0, metrics.getAllocatedBytes());
+        queueHighWater = Math.max(queueHighWater, metrics.getQueueHighWater());
+        transitionsAdded += metrics.getTransitionsAdded();
+        transitionsRemoved += metrics.getTransitionsRemoved();
+        superStates += metrics.getSuperStates();
+    }
+
+    PhaseTotals copy() {
+        return new PhaseTotals(this);
+    }
+}
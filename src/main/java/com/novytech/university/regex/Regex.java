@@ -0,0 +1,56 @@
+package com.novytech.university.regex;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.matching.CompiledDfa;
+import com.novytech.university.superautomata.SuperAutomaton;
+
+// Regular expressions matched by a DFA instead of backtracking: the pattern is compiled to a Thompson NFA,
+// EPS transitions are eliminated, and the determinized, minimized result is compiled to a table. Matching is
+// linear in the input whatever the pattern. Supported syntax: concatenation, '|', '*', '+', '?', groups,
+// '.', classes with ranges and negation, and the escapes \d \w \s \D \W \S \t \n \r \f.
+// Classes are range symbols, so their size does not matter: '.' is every char, line breaks included.
+// Rejected with an IllegalArgumentException: bounded repetition {n,m}, the anchors ^ and $, possessive
+// quantifiers, lookaround and other (? constructs, backreferences and other letter escapes. Escape '{', '}',
+// '^' and '$' to match them literally.
+public final class Regex {
+    private final String pattern;
+    private final CompiledDfa dfa;
+
+    private Regex(String pattern, CompiledDfa dfa) {
+        this.pattern = pattern;
+        this.dfa = dfa;
+    }
+
+    public static Regex compile(String pattern) {
+        CompactAutomaton nfa = toCore(pattern).eliminateEps().trim();
+        return new Regex(pattern, CompiledDfa.of(SuperAutomaton.fromAutomaton(nfa).minimize().getAutomaton()));
+    }
+
+    // The Thompson NFA itself, EPS transitions included
+    public static Automaton toAutomaton(String pattern) {
+        return toCore(pattern).toAutomaton();
+    }
+
+    public static CompactAutomaton toCore(String pattern) {
+        return ThompsonCompiler.compile(pattern);
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public CompiledDfa dfa() {
+        return dfa;
+    }
+
+    // Whole-input match, like Matcher.matches
+    public boolean matches(CharSequence input) {
+        return dfa.accepts(input);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
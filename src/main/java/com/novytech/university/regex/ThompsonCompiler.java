@@ -0,0 +1,288 @@
+package com.novytech.university.regex;
+
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Recursive descent over the pattern, emitting Thompson fragments straight into a builder:
+//   alternation   := concatenation ('|' concatenation)*
+//   concatenation := repetition*
+//   repetition    := atom ('*' | '+' | '?')*
+//   atom          := char | '.' | escape | '[' class ']' | '(' alternation ')' | '(?:' alternation ')'
+// A char class becomes one range symbol on a single edge, a lone char the plain symbol with the same text.
+// Unescaped '{', '}', '^' and '$' outside classes and possessive quantifiers are rejected rather than read as
+// literals.
+final class ThompsonCompiler {
+    // What '.', negated classes and \D \W \S are taken from: every char
+    static final BitSet UNIVERSE = new BitSet();
+
+    static {
+        UNIVERSE.set(Character.MIN_VALUE, Character.MAX_VALUE + 1);
+    }
+
+    private final String pattern;
+    private final CompactAutomaton.Builder builder = CompactAutomaton.builder();
+    private int position;
+    private int stateCount;
+
+    private ThompsonCompiler(String pattern) {
+        this.pattern = pattern;
+    }
+
+    static CompactAutomaton compile(String pattern) {
+        ThompsonCompiler compiler = new ThompsonCompiler(pattern);
+        int[] fragment = compiler.alternation();
+        if (compiler.position < pattern.length()) {
+            throw compiler.error("unbalanced ')'");
+        }
+        compiler.builder.initial(fragment[0]).finalState(fragment[1]);
+        return compiler.builder.build();
+    }
+
+    // Fragments are {start, end}: one entry and one exit state, end has no outgoing edges yet
+
+    private int[] alternation() {
+        int[] fragment = concatenation();
+        if (!peek('|')) {
+            return fragment;
+        }
+        int start = newState();
+        int end = newState();
+        epsilon(start, fragment[0]);
+        epsilon(fragment[1], end);
+        while (peek('|')) {
+            position++;
+            int[] alternative = concatenation();
+            epsilon(start, alternative[0]);
+            epsilon(alternative[1], end);
+        }
+        return new int[]{start, end};
+    }
+
+    private int[] concatenation() {
+        int[] fragment = null;
+        while (position < pattern.length() && !peek('|') && !peek(')')) {
+            int[] next = repetition();
+            if (fragment == null) {
+                fragment = next;
+            } else {
+                epsilon(fragment[1], next[0]);
+                fragment = new int[]{fragment[0], next[1]};
+            }
+        }
+        if (fragment == null) {
+            int state = newState();
+            return new int[]{state, state};
+        }
+        return fragment;
+    }
+
+    private int[] repetition() {
+        int[] fragment = atom();
+        while (position < pattern.length()) {
+            char operator = pattern.charAt(position);
+            if (operator != '*' && operator != '+' && operator != '?') {
+                break;
+            }
+            position++;
+            // A lazy '?' matches the same whole inputs, a possessive '+' does not
+            if (peek('+')) {
+                throw error("unsupported possessive quantifier");
+            }
+            int start = newState();
+            int end = newState();
+            epsilon(start, fragment[0]);
+            epsilon(fragment[1], end);
+            if (operator != '+') {
+                epsilon(start, end);
+            }
+            if (operator != '?') {
+                epsilon(fragment[1], fragment[0]);
+            }
+            fragment = new int[]{start, end};
+        }
+        return fragment;
+    }
+
+    private int[] atom() {
+        char c = pattern.charAt(position++);
+        switch (c) {
+            case '(': {
+                if (pattern.startsWith("?:", position)) {
+                    position += 2;
+                }
+                int[] fragment = alternation();
+                if (!peek(')')) {
+                    throw error("missing ')'");
+                }
+                position++;
+                return fragment;
+            }
+            case '[':
+                return chars(charClass());
+            case '.':
+                return chars(UNIVERSE);
+            case '\\':
+                return chars(escape());
+            case '*':
+            case '+':
+            case '?':
+                throw error("nothing to repeat before '" + c + "'");
+            // Literal chars here would match something else than java.util.regex does
+            case '{':
+            case '}':
+                throw error("unsupported bounded repetition");
+            case '^':
+            case '$':
+                throw error("unsupported anchor '" + c + "'");
+            default:
+                BitSet single = new BitSet();
+                single.set(c);
+                return chars(single);
+        }
+    }
+
+    // Called after '['
+    private BitSet charClass() {
+        BitSet chars = new BitSet();
+        boolean negated = peek('^');
+        if (negated) {
+            position++;
+        }
+        boolean first = true;
+        while (first || !peek(']')) {
+            first = false;
+            BitSet low = classItem();
+            if (low.cardinality() == 1 && peek('-') && position + 1 < pattern.length() && pattern.charAt(position + 1) != ']') {
+                position++;
+                BitSet high = classItem();
+                if (high.cardinality() != 1 || high.nextSetBit(0) < low.nextSetBit(0)) {
+                    throw error("bad range");
+                }
+                chars.set(low.nextSetBit(0), high.nextSetBit(0) + 1);
+            } else {
+                chars.or(low);
+            }
+        }
+        position++;
+        if (negated) {
+            BitSet complement = (BitSet) UNIVERSE.clone();
+            complement.andNot(chars);
+            return complement;
+        }
+        return chars;
+    }
+
+    private BitSet classItem() {
+        if (position >= pattern.length()) {
+            throw error("missing ']'");
+        }
+        char c = pattern.charAt(position++);
+        if (c == '\\') {
+            return escape();
+        }
+        BitSet single = new BitSet();
+        single.set(c);
+        return single;
+    }
+
+    // Called after '\'
+    private BitSet escape() {
+        if (position >= pattern.length()) {
+            throw error("dangling '\\'");
+        }
+        char c = pattern.charAt(position++);
+        BitSet shorthand = shorthand(Character.toLowerCase(c));
+        if (shorthand != null) {
+            if (Character.isLowerCase(c)) {
+                return shorthand;
+            }
+            BitSet complement = (BitSet) UNIVERSE.clone();
+            complement.andNot(shorthand);
+            return complement;
+        }
+        BitSet chars = new BitSet();
+        switch (c) {
+            case 't':
+                chars.set('\t');
+                break;
+            case 'n':
+                chars.set('\n');
+                break;
+            case 'r':
+                chars.set('\r');
+                break;
+            case 'f':
+                chars.set('\f');
+                break;
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw error("unsupported escape \\" + c);
+                }
+                chars.set(c);
+        }
+        return chars;
+    }
+
+    // \d, \w and \s; null for other letters
+    private static BitSet shorthand(char c) {
+        BitSet chars = new BitSet();
+        switch (c) {
+            case 'd':
+                chars.set('0', '9' + 1);
+                return chars;
+            case 'w':
+                chars.set('0', '9' + 1);
+                chars.set('A', 'Z' + 1);
+                chars.set('a', 'z' + 1);
+                chars.set('_');
+                return chars;
+            case 's':
+                chars.set(' ');
+                chars.set('\t', '\r' + 1);
+                return chars;
+            default:
+                return null;
+        }
+    }
+
+    // One edge on the range symbol for chars from a fresh start to a fresh end
+    private int[] chars(BitSet chars) {
+        if (chars.isEmpty()) {
+            throw error("empty character class");
+        }
+        int[] bounds = new int[0];
+        int count = 0;
+        for (int from = chars.nextSetBit(0); from >= 0; from = chars.nextSetBit(from + 1)) {
+            int to = chars.nextClearBit(from) - 1;
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, Math.max(8, count * 2));
+            }
+            bounds[count++] = from;
+            bounds[count++] = to;
+            from = to;
+        }
+        int start = newState();
+        int end = newState();
+        builder.transition(start, builder.symbol(Symbol.ranges(Arrays.copyOf(bounds, count))), end);
+        return new int[]{start, end};
+    }
+
+    private int newState() {
+        return builder.state("r" + stateCount++);
+    }
+
+    private void epsilon(int source, int target) {
+        builder.transition(source, CompactAutomaton.EPS, target);
+    }
+
+    private boolean peek(char c) {
+        return position < pattern.length() && pattern.charAt(position) == c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Cannot compile regex at index " + position + ": " + message + " in " + pattern);
+    }
+}
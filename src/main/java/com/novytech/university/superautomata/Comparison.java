@@ -0,0 +1,27 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.Symbol;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+@AllArgsConstructor
+public class Comparison {
+    private final boolean holds;
+    // Word the check failed on, null when it holds
+    private final List<Symbol> counterexample;
+    // Pairs visited before the answer was known
+    private final int exploredPairs;
+
+    @Override
+    public String toString() {
+        if (holds) {
+            return "holds (" + exploredPairs + " pairs)";
+        }
+        return "fails on \"" + counterexample.stream().map(Symbol::getSymbol).collect(Collectors.joining(" ")) + "\" (" + exploredPairs + " pairs)";
+    }
+}
@@ -0,0 +1,318 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.StateType;
+import com.novytech.university.automata.Symbol;
+
+import java.util.*;
+
+// Hopcroft partition refinement in the formulation of Valmari and Lehtinen, which works on partial DFAs:
+// states that are unreachable or cannot reach a final state are removed first, then blocks of states and
+// cords of same-label transitions refine each other until stable. O(m log n) for m transitions.
+class HopcroftMinimizer {
+    private HopcroftMinimizer() {}
+
+    static Minimization minimize(SuperAutomaton dfa) {
+        List<SuperState> states = dfa.getStates();
+        List<SuperTransition> transitions = dfa.getTransitions();
+        int n = states.size();
+        int m = transitions.size();
+
+        Map<SuperState, Integer> stateIds = new IdentityHashMap<>();
+        for (SuperState state : states) {
+            stateIds.put(state, stateIds.size());
+        }
+        Map<Symbol, Integer> labelIds = new HashMap<>();
+        List<Symbol> labels = new ArrayList<>();
+        int[] tail = new int[m];
+        int[] label = new int[m];
+        int[] head = new int[m];
+        for (int t = 0; t < m; t++) {
+            SuperTransition transition = transitions.get(t);
+            tail[t] = stateIds.get(transition.getSource());
+            head[t] = stateIds.get(transition.getTarget());
+            Integer id = labelIds.get(transition.getActivator());
+            if (id == null) {
+                id = labels.size();
+                labelIds.put(transition.getActivator(), id);
+                labels.add(transition.getActivator());
+            }
+            label[t] = id;
+        }
+
+        // Trim: keep states reachable from the initial state that can also reach a final state
+        boolean[] reachable = reach(n, m, tail, head, new int[]{0});
+        int[] finals = states.stream().filter(s -> s.getType() == StateType.FINAL).mapToInt(stateIds::get).toArray();
+        boolean[] coaccessible = reach(n, m, head, tail, finals);
+
+        int[] liveId = new int[n];
+        int[] liveState = new int[n];
+        int nn = 0;
+        for (int s = 0; s < n; s++) {
+            liveId[s] = reachable[s] && coaccessible[s] ? nn : -1;
+            if (liveId[s] >= 0) {
+                liveState[nn++] = s;
+            }
+        }
+
+        SuperAutomaton minimized = new SuperAutomaton();
+        if (nn == 0 || liveId[0] != 0) {
+            // Empty language, the initial state alone is enough
+            SuperState initial = states.get(0);
+            minimized.getStates().add(new SuperState(initial.getSources(), StateType.COMMON));
+            return new Minimization(minimized, n, 1);
+        }
+
+        int mm = 0;
+        int[] liveTransition = new int[m];
+        for (int t = 0; t < m; t++) {
+            if (liveId[tail[t]] >= 0 && liveId[head[t]] >= 0) {
+                liveTransition[mm++] = t;
+            }
+        }
+        int[] tails = new int[mm];
+        int[] heads = new int[mm];
+        int[] labelOf = new int[mm];
+        for (int i = 0; i < mm; i++) {
+            int t = liveTransition[i];
+            tails[i] = liveId[tail[t]];
+            heads[i] = liveId[head[t]];
+            labelOf[i] = label[t];
+        }
+
+        // Incoming transitions of every state, grouped by head
+        int[] inFirst = new int[nn + 1];
+        for (int i = 0; i < mm; i++) {
+            inFirst[heads[i] + 1]++;
+        }
+        for (int s = 0; s < nn; s++) {
+            inFirst[s + 1] += inFirst[s];
+        }
+        int[] incoming = new int[mm];
+        int[] fill = Arrays.copyOf(inFirst, nn);
+        for (int i = 0; i < mm; i++) {
+            incoming[fill[heads[i]]++] = i;
+        }
+
+        Partition blocks = new Partition(nn);
+        for (int s = 0; s < nn; s++) {
+            if (states.get(liveState[s]).getType() == StateType.FINAL) {
+                blocks.mark(s);
+            }
+        }
+        blocks.split();
+        // Union DFAs: final states accepting different pattern sets are never equivalent
+        Map<BitSet, List<Integer>> byPatterns = new HashMap<>();
+        for (int s = 0; s < nn; s++) {
+            BitSet patterns = states.get(liveState[s]).getPatterns();
+            if (!patterns.isEmpty()) {
+                byPatterns.computeIfAbsent(patterns, p -> new ArrayList<>()).add(s);
+            }
+        }
+        for (List<Integer> group : byPatterns.values()) {
+            for (int s : group) {
+                blocks.mark(s);
+            }
+            blocks.split();
+        }
+
+        Partition cords = new Partition(mm);
+        if (mm > 0) {
+            // Initial cords are the label groups, laid out by a counting sort on label
+            int[] labelFirst = new int[labels.size() + 1];
+            for (int i = 0; i < mm; i++) {
+                labelFirst[labelOf[i] + 1]++;
+            }
+            for (int a = 0; a < labels.size(); a++) {
+                labelFirst[a + 1] += labelFirst[a];
+            }
+            int[] byLabel = new int[mm];
+            int[] next = Arrays.copyOf(labelFirst, labels.size());
+            for (int i = 0; i < mm; i++) {
+                byLabel[next[labelOf[i]]++] = i;
+            }
+            for (int i = 0; i < mm; i++) {
+                cords.elements[i] = byLabel[i];
+                cords.location[byLabel[i]] = i;
+            }
+            cords.sets = 0;
+            for (int i = 0; i < mm; i++) {
+                if (i == 0 || labelOf[byLabel[i]] != labelOf[byLabel[i - 1]]) {
+                    if (cords.sets > 0) {
+                        cords.past[cords.sets - 1] = i;
+                    }
+                    cords.first[cords.sets++] = i;
+                }
+                cords.setOf[byLabel[i]] = cords.sets - 1;
+            }
+            cords.past[cords.sets - 1] = mm;
+        }
+
+        int b = 1;
+        int c = 0;
+        while (c < cords.sets) {
+            for (int i = cords.first[c]; i < cords.past[c]; i++) {
+                blocks.mark(tails[cords.elements[i]]);
+            }
+            blocks.split();
+            c++;
+            while (b < blocks.sets) {
+                for (int i = blocks.first[b]; i < blocks.past[b]; i++) {
+                    int s = blocks.elements[i];
+                    for (int j = inFirst[s]; j < inFirst[s + 1]; j++) {
+                        cords.mark(incoming[j]);
+                    }
+                }
+                cords.split();
+                b++;
+            }
+        }
+
+        // Rebuild from the initial block; each block is represented by its lowest numbered member
+        int blockCount = blocks.sets;
+        int[] representative = new int[blockCount];
+        Arrays.fill(representative, Integer.MAX_VALUE);
+        for (int s = 0; s < nn; s++) {
+            int block = blocks.setOf[s];
+            representative[block] = Math.min(representative[block], s);
+        }
+        int[][] targets = new int[blockCount][labels.size()];
+        for (int[] row : targets) {
+            Arrays.fill(row, -1);
+        }
+        for (int i = 0; i < mm; i++) {
+            targets[blocks.setOf[tails[i]]][labelOf[i]] = blocks.setOf[heads[i]];
+        }
+
+        SuperState[] built = new SuperState[blockCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int initialBlock = blocks.setOf[0];
+        built[initialBlock] = copy(states.get(liveState[representative[initialBlock]]));
+        minimized.getStates().add(built[initialBlock]);
+        queue.add(initialBlock);
+        while (!queue.isEmpty()) {
+            int block = queue.remove();
+            for (int a = 0; a < labels.size(); a++) {
+                int target = targets[block][a];
+                if (target < 0) {
+                    continue;
+                }
+                if (built[target] == null) {
+                    built[target] = copy(states.get(liveState[representative[target]]));
+                    minimized.getStates().add(built[target]);
+                    queue.add(target);
+                }
+                minimized.addTransition(built[block], labels.get(a), built[target]);
+            }
+        }
+
+        return new Minimization(minimized, n, minimized.getStates().size());
+    }
+
+    private static SuperState copy(SuperState state) {
+        return new SuperState(state.getSources(), state.getType());
+    }
+
+    private static boolean[] reach(int n, int m, int[] from, int[] to, int[] roots) {
+        int[] first = new int[n + 1];
+        for (int t = 0; t < m; t++) {
+            first[from[t] + 1]++;
+        }
+        for (int s = 0; s < n; s++) {
+            first[s + 1] += first[s];
+        }
+        int[] adjacent = new int[m];
+        int[] fill = Arrays.copyOf(first, n);
+        for (int t = 0; t < m; t++) {
+            adjacent[fill[from[t]]++] = to[t];
+        }
+
+        boolean[] seen = new boolean[n];
+        int[] stack = new int[n];
+        int top = 0;
+        for (int root : roots) {
+            if (!seen[root]) {
+                seen[root] = true;
+                stack[top++] = root;
+            }
+        }
+        while (top > 0) {
+            int s = stack[--top];
+            for (int i = first[s]; i < first[s + 1]; i++) {
+                if (!seen[adjacent[i]]) {
+                    seen[adjacent[i]] = true;
+                    stack[top++] = adjacent[i];
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Refinable partition: elements of set s occupy elements[first[s] .. past[s]), marked ones come first
+    private static final class Partition {
+        private int sets;
+        private final int[] elements;
+        private final int[] location;
+        private final int[] setOf;
+        private final int[] first;
+        private final int[] past;
+        private final int[] marked;
+        private final int[] touched;
+        private int touchedCount;
+
+        private Partition(int size) {
+            sets = size > 0 ? 1 : 0;
+            elements = new int[size];
+            location = new int[size];
+            setOf = new int[size];
+            first = new int[size + 1];
+            past = new int[size + 1];
+            marked = new int[size + 1];
+            touched = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                elements[i] = i;
+                location[i] = i;
+            }
+            past[0] = size;
+        }
+
+        private void mark(int element) {
+            int set = setOf[element];
+            int i = location[element];
+            int j = first[set] + marked[set];
+            elements[i] = elements[j];
+            location[elements[i]] = i;
+            elements[j] = element;
+            location[element] = j;
+            if (marked[set]++ == 0) {
+                touched[touchedCount++] = set;
+            }
+        }
+
+        // Marked part of every touched set becomes a set of its own, the smaller part gets the new number
+        private void split() {
+            while (touchedCount > 0) {
+                int set = touched[--touchedCount];
+                int j = first[set] + marked[set];
+                if (j == past[set]) {
+                    marked[set] = 0;
+                    continue;
+                }
+                if (marked[set] <= past[set] - j) {
+                    first[sets] = first[set];
+                    past[sets] = j;
+                    first[set] = j;
+                } else {
+                    past[sets] = past[set];
+                    first[sets] = j;
+                    past[set] = j;
+                }
+                for (int i = first[sets]; i < past[sets]; i++) {
+                    setOf[elements[i]] = sets;
+                }
+                marked[set] = 0;
+                marked[sets] = 0;
+                sets++;
+            }
+        }
+    }
+}
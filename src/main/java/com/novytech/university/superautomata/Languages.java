@@ -0,0 +1,248 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import java.util.*;
+
+// Language comparisons that never build a DFA in full. Operands with EPS transitions are eliminated on a copy,
+// range symbols are split over the joint alphabet as in Product.
+public final class Languages {
+    private Languages() {
+    }
+
+    public static Comparison equivalent(Automaton left, Automaton right) {
+        return equivalent(CompactAutomaton.of(left), CompactAutomaton.of(right));
+    }
+
+    public static Comparison equivalent(SuperAutomaton left, SuperAutomaton right) {
+        return equivalent(Product.core(left), Product.core(right));
+    }
+
+    // Hopcroft-Karp: subsets of both sides reached on the same word are merged in a union-find, and a pair is only
+    // expanded when its sides were not already known to be equal. The counterexample is accepted by exactly one side.
+    public static Comparison equivalent(CompactAutomaton left, CompactAutomaton right) {
+        CompactAutomaton[] aligned = Product.aligned(Product.withoutEps(left), Product.withoutEps(right));
+        return new Equivalence(aligned[0], aligned[1]).run();
+    }
+
+    public static Comparison includes(Automaton including, Automaton included) {
+        return includes(CompactAutomaton.of(including), CompactAutomaton.of(included));
+    }
+
+    public static Comparison includes(SuperAutomaton including, SuperAutomaton included) {
+        return includes(Product.core(including), Product.core(included));
+    }
+
+    // Whether every word of included is accepted by including; the counterexample is accepted by included only.
+    // Pairs a single state of included with a subset of including and keeps, per state, only the minimal subsets
+    // seen so far (an antichain): a larger subset accepts more, so it cannot fail where a smaller one did not.
+    public static Comparison includes(CompactAutomaton including, CompactAutomaton included) {
+        CompactAutomaton[] aligned = Product.aligned(Product.withoutEps(including), Product.withoutEps(included));
+        return new Inclusion(aligned[0], aligned[1]).run();
+    }
+
+    // Reachable pairs with parent links, so the word leading to any of them can be rebuilt
+    private static final class Trail {
+        private final List<int[]> parents = new ArrayList<>();
+
+        private int add(int parent, int symbol) {
+            parents.add(new int[]{parent, symbol});
+            return parents.size() - 1;
+        }
+
+        private int size() {
+            return parents.size();
+        }
+
+        private List<Symbol> word(int index, Symbol[] symbols) {
+            LinkedList<Symbol> word = new LinkedList<>();
+            for (int i = index; parents.get(i)[0] >= 0; i = parents.get(i)[0]) {
+                word.addFirst(symbols[parents.get(i)[1]]);
+            }
+            return new ArrayList<>(word);
+        }
+    }
+
+    private static final class Equivalence {
+        private final CompactAutomaton left;
+        private final CompactAutomaton right;
+        private final Symbol[] symbols;
+        private final int[] leftSymbols;
+        private final int[] rightSymbols;
+        // Union-find nodes: every distinct subset of either side, the dead subset included
+        private final Map<SubsetKey, Integer> leftNodes = new HashMap<>();
+        private final Map<SubsetKey, Integer> rightNodes = new HashMap<>();
+        private int[] parent = new int[16];
+        private int nodeCount;
+
+        private Equivalence(CompactAutomaton left, CompactAutomaton right) {
+            this.left = left;
+            this.right = right;
+            this.symbols = Product.alphabet(left, right);
+            this.leftSymbols = Product.symbolIds(left, symbols);
+            this.rightSymbols = Product.symbolIds(right, symbols);
+        }
+
+        private Comparison run() {
+            SubsetSuccessors leftSuccessors = new SubsetSuccessors(left);
+            SubsetSuccessors rightSuccessors = new SubsetSuccessors(right);
+            List<SubsetKey[]> pairs = new ArrayList<>();
+            Trail trail = new Trail();
+
+            SubsetKey[] initial = {Product.initialKey(left), Product.initialKey(right)};
+            union(node(leftNodes, initial[0]), node(rightNodes, initial[1]));
+            pairs.add(initial);
+            trail.add(-1, -1);
+            for (int next = 0; next < pairs.size(); next++) {
+                SubsetKey[] pair = pairs.get(next);
+                if (Product.isFinal(left, pair[0]) != Product.isFinal(right, pair[1])) {
+                    return new Comparison(false, trail.word(next, symbols), trail.size());
+                }
+                for (int i = 0; i < symbols.length; i++) {
+                    SubsetKey leftNext = pair[0] == null || leftSymbols[i] < 0 ? null : leftSuccessors.successor(pair[0], leftSymbols[i]);
+                    SubsetKey rightNext = pair[1] == null || rightSymbols[i] < 0 ? null : rightSuccessors.successor(pair[1], rightSymbols[i]);
+                    if (union(node(leftNodes, leftNext), node(rightNodes, rightNext))) {
+                        pairs.add(new SubsetKey[]{leftNext, rightNext});
+                        trail.add(next, i);
+                    }
+                }
+            }
+            return new Comparison(true, null, trail.size());
+        }
+
+        // HashMap accepts the null key, which stands for the dead subset
+        private int node(Map<SubsetKey, Integer> nodes, SubsetKey key) {
+            Integer node = nodes.get(key);
+            if (node == null) {
+                if (nodeCount == parent.length) {
+                    parent = Arrays.copyOf(parent, nodeCount * 2);
+                }
+                parent[nodeCount] = nodeCount;
+                node = nodeCount++;
+                nodes.put(key, node);
+            }
+            return node;
+        }
+
+        private int find(int node) {
+            while (parent[node] != node) {
+                parent[node] = parent[parent[node]];
+                node = parent[node];
+            }
+            return node;
+        }
+
+        // false when both were already in the same class
+        private boolean union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return false;
+            }
+            parent[rootA] = rootB;
+            return true;
+        }
+    }
+
+    private static final class Inclusion {
+        private final CompactAutomaton including;
+        private final CompactAutomaton included;
+        private final Symbol[] symbols;
+        private final int[] includingSymbols;
+        private final int[] includedSymbols;
+        // antichain.get(state): minimal subsets of including already paired with that state of included
+        private final Map<Integer, List<BitSet>> antichain = new HashMap<>();
+
+        private Inclusion(CompactAutomaton including, CompactAutomaton included) {
+            this.including = including;
+            this.included = included;
+            this.symbols = Product.alphabet(included, including);
+            this.includingSymbols = Product.symbolIds(including, symbols);
+            this.includedSymbols = Product.symbolIds(included, symbols);
+        }
+
+        private Comparison run() {
+            List<Integer> states = new ArrayList<>();
+            List<BitSet> subsets = new ArrayList<>();
+            Trail trail = new Trail();
+
+            BitSet initial = new BitSet();
+            for (int i = 0; i < including.initialStateCount(); i++) {
+                initial.set(including.initialState(i));
+            }
+            for (int i = 0; i < included.initialStateCount(); i++) {
+                if (add(included.initialState(i), initial)) {
+                    states.add(included.initialState(i));
+                    subsets.add(initial);
+                    trail.add(-1, -1);
+                }
+            }
+            for (int next = 0; next < states.size(); next++) {
+                int state = states.get(next);
+                BitSet subset = subsets.get(next);
+                if (included.isFinal(state) && !isFinal(subset)) {
+                    return new Comparison(false, trail.word(next, symbols), trail.size());
+                }
+                for (int i = 0; i < symbols.length; i++) {
+                    int symbol = includedSymbols[i];
+                    if (symbol < 0 || included.outStart(state, symbol) == included.outEnd(state, symbol)) {
+                        continue;
+                    }
+                    BitSet successors = successors(subset, includingSymbols[i]);
+                    for (int e = included.outStart(state, symbol); e < included.outEnd(state, symbol); e++) {
+                        int target = included.outTarget(e);
+                        if (add(target, successors)) {
+                            states.add(target);
+                            subsets.add(successors);
+                            trail.add(next, i);
+                        }
+                    }
+                }
+            }
+            return new Comparison(true, null, trail.size());
+        }
+
+        // false when a subset of it is already paired with state; otherwise drops the supersets it makes redundant
+        private boolean add(int state, BitSet subset) {
+            List<BitSet> minimal = antichain.computeIfAbsent(state, s -> new ArrayList<>());
+            for (BitSet known : minimal) {
+                if (isSubset(known, subset)) {
+                    return false;
+                }
+            }
+            minimal.removeIf(known -> isSubset(subset, known));
+            minimal.add(subset);
+            return true;
+        }
+
+        private BitSet successors(BitSet subset, int symbol) {
+            BitSet successors = new BitSet();
+            if (symbol < 0) {
+                return successors;
+            }
+            for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                for (int e = including.outStart(s, symbol); e < including.outEnd(s, symbol); e++) {
+                    successors.set(including.outTarget(e));
+                }
+            }
+            return successors;
+        }
+
+        private boolean isFinal(BitSet subset) {
+            for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                if (including.isFinal(s)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isSubset(BitSet smaller, BitSet larger) {
+            BitSet rest = (BitSet) smaller.clone();
+            rest.andNot(larger);
+            return rest.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CharPartition;
+import com.novytech.university.automata.CharTable;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.Symbol;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Determinizes an EPS-free automaton on the fly while matching: a superstate and its outgoing edges
+// are only computed when some input reaches them, and at most capacity superstates are kept.
+// Not thread-safe, use one instance per thread.
+public class LazyDfa {
+    public enum EvictionPolicy {
+        // Drop the least recently visited superstate
+        LRU,
+        // Drop the whole cache, as RE2 does
+        FLUSH_ON_FULL
+    }
+
+    // Once one input has pushed a whole cache worth of superstates out and more than this share of its
+    // steps missed, the rest of the input is simulated on the NFA without touching the cache
+    private static final double THRASH_MISS_RATIO = 0.5;
+
+    private final CompactAutomaton core;
+    private final int capacity;
+    private final EvictionPolicy policy;
+    private final SubsetSuccessors successors;
+    private final CharTable charSymbols;
+    // Symbols of the partitioned core by id
+    private final Symbol[] alphabet;
+
+    private final Map<SubsetKey, Node> cache = new HashMap<>();
+    // Sentinel of the recency list, head.newer is the least recently visited node
+    private final Node head = new Node(null, false, 0);
+    private final SubsetKey initialKey;
+    private Node initial;
+
+    private @Getter long hits;
+    private @Getter long misses;
+    private @Getter long evictions;
+    private @Getter long flushes;
+    private @Getter long fallbacks;
+
+    public LazyDfa(Automaton automaton, int capacity, EvictionPolicy policy) {
+        this(CompactAutomaton.of(automaton), capacity, policy);
+    }
+
+    public LazyDfa(CompactAutomaton core, int capacity, EvictionPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive, got " + capacity);
+        }
+        for (int s = 0; s < core.stateCount(); s++) {
+            if (core.outStart(s, CompactAutomaton.EPS) != core.outEnd(s, CompactAutomaton.EPS)) {
+                throw new IllegalArgumentException("Cannot build lazy DFA: state " + core.stateName(s) + " has EPS transitions");
+            }
+        }
+        this.core = core.partitioned();
+        this.capacity = capacity;
+        this.policy = policy;
+        this.successors = new SubsetSuccessors(this.core);
+        this.alphabet = new Symbol[this.core.symbolCount()];
+        Arrays.setAll(alphabet, this.core::symbol);
+        this.charSymbols = charSymbols(alphabet);
+        head.older = head;
+        head.newer = head;
+
+        int[] initialStates = core.initialStates();
+        Arrays.sort(initialStates);
+        this.initialKey = new SubsetKey(initialStates);
+    }
+
+    public int cachedStates() {
+        return cache.size();
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        flushes = 0;
+        fallbacks = 0;
+    }
+
+    // -1 when unknown. Ids refer to the partitioned core, which only matches the core this was built from when
+    // it has no range symbols; a char symbol that is not one of its classes resolves as in CharPartition.classIndex
+    public int symbolId(Symbol symbol) {
+        int id = core.symbolId(symbol);
+        return id >= 0 ? id : CharPartition.classIndex(alphabet, symbol);
+    }
+
+    public boolean accepts(List<Symbol> word) {
+        int[] symbols = new int[word.size()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolId(word.get(i));
+        }
+        return accepts(symbols);
+    }
+
+    // Every char is read as the symbol covering it: the single-character symbol with the same text or a range
+    public boolean accepts(CharSequence word) {
+        int[] symbols = new int[word.length()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = charSymbols.get(word.charAt(i));
+        }
+        return accepts(symbols);
+    }
+
+    // Symbols are ids as returned by symbolId, not ids of the caller's core; unknown ids (-1) reject
+    public boolean accepts(int[] symbols) {
+        if (initialKey.size() == 0) {
+            return false;
+        }
+        Node current = initial != null && !initial.evicted ? initial : (initial = lookup(initialKey));
+        long runMisses = 0;
+        long droppedBefore = dropped();
+
+        for (int i = 0; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            if (symbol <= CompactAutomaton.EPS || symbol >= core.symbolCount()) {
+                return false;
+            }
+
+            Node next = current.next[symbol];
+            if (next != null && !next.evicted) {
+                hits++;
+            } else if (current.dead[symbol]) {
+                hits++;
+                return false;
+            } else {
+                misses++;
+                runMisses++;
+                SubsetKey key = successors.successor(current.key, symbol);
+                if (key == null) {
+                    current.dead[symbol] = true;
+                    return false;
+                }
+                if (dropped() - droppedBefore >= capacity && runMisses > THRASH_MISS_RATIO * i) {
+                    fallbacks++;
+                    return simulate(key, symbols, i + 1);
+                }
+                Node pinned = current;
+                next = lookup(key);
+                if (!pinned.evicted) {
+                    pinned.next[symbol] = next;
+                }
+            }
+            touch(next);
+            current = next;
+        }
+        return current.accepting;
+    }
+
+    private long dropped() {
+        return evictions + flushes * capacity;
+    }
+
+    // Plain NFA simulation from the given subset, nothing is cached
+    private boolean simulate(SubsetKey key, int[] symbols, int from) {
+        for (int i = from; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            if (symbol <= CompactAutomaton.EPS || symbol >= core.symbolCount()) {
+                return false;
+            }
+            key = successors.successor(key, symbol);
+            if (key == null) {
+                return false;
+            }
+        }
+        return accepting(key);
+    }
+
+    private Node lookup(SubsetKey key) {
+        Node node = cache.get(key);
+        if (node != null) {
+            return node;
+        }
+        if (cache.size() >= capacity) {
+            makeRoom();
+        }
+        node = new Node(key, accepting(key), core.symbolCount());
+        cache.put(key, node);
+        link(node);
+        return node;
+    }
+
+    private void makeRoom() {
+        if (policy == EvictionPolicy.FLUSH_ON_FULL) {
+            for (Node node : cache.values()) {
+                drop(node);
+            }
+            cache.clear();
+            head.older = head;
+            head.newer = head;
+            flushes++;
+            return;
+        }
+        Node eldest = head.newer;
+        unlink(eldest);
+        cache.remove(eldest.key);
+        drop(eldest);
+        evictions++;
+    }
+
+    // Rows of dropped nodes are cleared so stale pointers never keep chains of evicted nodes alive
+    private void drop(Node node) {
+        node.evicted = true;
+        node.next = null;
+    }
+
+    private boolean accepting(SubsetKey key) {
+        for (int i = 0; i < key.size(); i++) {
+            if (core.isFinal(key.state(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void touch(Node node) {
+        if (policy == EvictionPolicy.LRU && head.older != node) {
+            unlink(node);
+            link(node);
+        }
+    }
+
+    private void link(Node node) {
+        node.older = head.older;
+        node.newer = head;
+        head.older.newer = node;
+        head.older = node;
+    }
+
+    private void unlink(Node node) {
+        node.older.newer = node.newer;
+        node.newer.older = node.older;
+    }
+
+    private static CharTable charSymbols(Symbol[] symbols) {
+        int[] ids = new int[symbols.length];
+        Arrays.setAll(ids, a -> a);
+        return CharTable.of(symbols, ids, -1);
+    }
+
+    private static final class Node {
+        private final SubsetKey key;
+        private final boolean accepting;
+        private Node[] next;
+        private final boolean[] dead;
+        private boolean evicted;
+        private Node older;
+        private Node newer;
+
+        private Node(SubsetKey key, boolean accepting, int symbolCount) {
+            this.key = key;
+            this.accepting = accepting;
+            this.next = new Node[symbolCount];
+            this.dead = new boolean[symbolCount];
+        }
+    }
+}
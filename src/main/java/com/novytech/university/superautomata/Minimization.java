@@ -0,0 +1,17 @@
+package com.novytech.university.superautomata;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class Minimization {
+    private final SuperAutomaton automaton;
+    private final int statesBefore;
+    private final int statesAfter;
+
+    @Override
+    public String toString() {
+        return "Minimized " + statesBefore + " -> " + statesAfter + " states";
+    }
+}
@@ -0,0 +1,288 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.Automaton;
+import com.novytech.university.automata.CharPartition;
+import com.novytech.university.automata.CompactAutomaton;
+import com.novytech.university.automata.StateType;
+import com.novytech.university.automata.Symbol;
+
+import java.util.*;
+
+// Product of two automata, explored on demand. A product state pairs a subset of left states with a
+// subset of right states (null once a side is dead), so NFAs are determinized only as far as the
+// exploration reaches, and difference works without building a complement. witness() stops at the first
+// accepting pair, which usually answers overlap questions after a small part of the product.
+// Symbols are matched by equality after splitting range symbols over the joint alphabet; a symbol missing on one side
+// kills that side.
+public final class Product {
+    public enum Operation {
+        INTERSECTION,
+        UNION,
+        DIFFERENCE;
+
+        private boolean accepts(boolean left, boolean right) {
+            switch (this) {
+                case INTERSECTION:
+                    return left && right;
+                case UNION:
+                    return left || right;
+                default:
+                    return left && !right;
+            }
+        }
+
+        // No accepting pair is reachable from a pair with these sides alive
+        private boolean isDead(boolean leftAlive, boolean rightAlive) {
+            switch (this) {
+                case INTERSECTION:
+                    return !leftAlive || !rightAlive;
+                case UNION:
+                    return !leftAlive && !rightAlive;
+                default:
+                    return !leftAlive;
+            }
+        }
+    }
+
+    private final Operation operation;
+    private final CompactAutomaton left;
+    private final CompactAutomaton right;
+    private final Symbol[] symbols;
+    private final int[] leftSymbols;
+    private final int[] rightSymbols;
+
+    private int exploredStates;
+
+    private Product(Operation operation, CompactAutomaton left, CompactAutomaton right) {
+        CompactAutomaton[] aligned = aligned(withoutEps(left), withoutEps(right));
+        this.operation = operation;
+        this.left = aligned[0];
+        this.right = aligned[1];
+
+        this.symbols = alphabet(this.left, this.right);
+        this.leftSymbols = symbolIds(this.left, symbols);
+        this.rightSymbols = symbolIds(this.right, symbols);
+    }
+
+    public static Product of(Operation operation, CompactAutomaton left, CompactAutomaton right) {
+        return new Product(operation, left, right);
+    }
+
+    // Neither automaton is modified
+    public static Product of(Operation operation, Automaton left, Automaton right) {
+        return new Product(operation, CompactAutomaton.of(left), CompactAutomaton.of(right));
+    }
+
+    public static Product of(Operation operation, SuperAutomaton left, SuperAutomaton right) {
+        return new Product(operation, core(left), core(right));
+    }
+
+    public boolean isEmpty() {
+        return witness() == null;
+    }
+
+    // Shortest word of the product language, null when it is empty
+    public List<Symbol> witness() {
+        Exploration exploration = new Exploration();
+        for (int next = 0; next < exploration.pairs.size(); next++) {
+            if (exploration.pairs.get(next).accepting) {
+                exploredStates = exploration.pairs.size();
+                return exploration.path(next);
+            }
+            exploration.expand(next, null);
+        }
+        exploredStates = exploration.pairs.size();
+        return null;
+    }
+
+    // Product states registered by the last witness or materialize call
+    public int exploredStates() {
+        return exploredStates;
+    }
+
+    // Explores the whole reachable product into a deterministic EPS-free core; dead pairs are left out
+    public CompactAutomaton materialize() {
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        int[] symbolIds = new int[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIds[i] = builder.symbol(symbols[i]);
+        }
+        Exploration exploration = new Exploration();
+        if (!exploration.pairs.isEmpty()) {
+            builder.initial(builder.state("0"));
+        }
+        for (int next = 0; next < exploration.pairs.size(); next++) {
+            int source = builder.state(String.valueOf(next));
+            if (exploration.pairs.get(next).accepting) {
+                builder.finalState(source);
+            }
+            exploration.expand(next, (symbol, target) ->
+                    builder.transition(source, symbolIds[symbol], builder.state(String.valueOf(target))));
+        }
+        exploredStates = exploration.pairs.size();
+        return builder.build();
+    }
+
+    private interface EdgeListener {
+        void onEdge(int symbol, int target);
+    }
+
+    // BFS state of one exploration; pairs doubles as the queue, parents allow rebuilding witnesses
+    private final class Exploration {
+        private final List<Pair> pairs = new ArrayList<>();
+        private final Map<Pair, Integer> known = new HashMap<>();
+        private final List<int[]> parents = new ArrayList<>();
+        private final SubsetSuccessors leftSuccessors = new SubsetSuccessors(left);
+        private final SubsetSuccessors rightSuccessors = new SubsetSuccessors(right);
+
+        private Exploration() {
+            register(new Pair(initialKey(left), initialKey(right)), -1, -1);
+        }
+
+        private int register(Pair pair, int parent, int symbol) {
+            if (operation.isDead(pair.left != null, pair.right != null)) {
+                return -1;
+            }
+            Integer id = known.get(pair);
+            if (id == null) {
+                id = pairs.size();
+                pair.accepting = operation.accepts(isFinal(left, pair.left), isFinal(right, pair.right));
+                known.put(pair, id);
+                pairs.add(pair);
+                parents.add(new int[]{parent, symbol});
+            }
+            return id;
+        }
+
+        private void expand(int index, EdgeListener listener) {
+            Pair pair = pairs.get(index);
+            for (int i = 0; i < symbols.length; i++) {
+                SubsetKey leftNext = pair.left == null || leftSymbols[i] < 0 ? null : leftSuccessors.successor(pair.left, leftSymbols[i]);
+                SubsetKey rightNext = pair.right == null || rightSymbols[i] < 0 ? null : rightSuccessors.successor(pair.right, rightSymbols[i]);
+                int target = register(new Pair(leftNext, rightNext), index, i);
+                if (target >= 0 && listener != null) {
+                    listener.onEdge(i, target);
+                }
+            }
+        }
+
+        private List<Symbol> path(int index) {
+            LinkedList<Symbol> word = new LinkedList<>();
+            for (int i = index; parents.get(i)[0] >= 0; i = parents.get(i)[0]) {
+                word.addFirst(symbols[parents.get(i)[1]]);
+            }
+            return new ArrayList<>(word);
+        }
+    }
+
+    private static final class Pair {
+        private final SubsetKey left;
+        private final SubsetKey right;
+        private boolean accepting;
+
+        private Pair(SubsetKey left, SubsetKey right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair other = (Pair) o;
+            return Objects.equals(left, other.left) && Objects.equals(right, other.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(left) * 31 + Objects.hashCode(right);
+        }
+    }
+
+    static boolean isFinal(CompactAutomaton core, SubsetKey key) {
+        if (key == null) {
+            return false;
+        }
+        for (int i = 0; i < key.size(); i++) {
+            if (core.isFinal(key.state(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // null when there are no initial states
+    static SubsetKey initialKey(CompactAutomaton core) {
+        if (core.initialStateCount() == 0) {
+            return null;
+        }
+        int[] initialStates = core.initialStates();
+        Arrays.sort(initialStates);
+        return new SubsetKey(initialStates);
+    }
+
+    // Symbols of both cores without EPS, left ones first
+    static Symbol[] alphabet(CompactAutomaton left, CompactAutomaton right) {
+        Set<Symbol> alphabet = new LinkedHashSet<>();
+        for (CompactAutomaton side : Arrays.asList(left, right)) {
+            for (int a = CompactAutomaton.EPS + 1; a < side.symbolCount(); a++) {
+                alphabet.add(side.symbol(a));
+            }
+        }
+        return alphabet.toArray(new Symbol[0]);
+    }
+
+    // Id of every symbol in core, -1 when core lacks it
+    static int[] symbolIds(CompactAutomaton core, Symbol[] symbols) {
+        int[] ids = new int[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            ids[i] = core.symbolId(symbols[i]);
+        }
+        return ids;
+    }
+
+    // Both cores over the minterms of their joint alphabet, so equal symbols are the only ones sharing chars
+    static CompactAutomaton[] aligned(CompactAutomaton left, CompactAutomaton right) {
+        List<Symbol> symbols = new ArrayList<>();
+        for (CompactAutomaton side : Arrays.asList(left, right)) {
+            for (int a = 0; a < side.symbolCount(); a++) {
+                symbols.add(side.symbol(a));
+            }
+        }
+        if (symbols.stream().noneMatch(Symbol::isRange)) {
+            return new CompactAutomaton[]{left, right};
+        }
+        CharPartition partition = CharPartition.of(symbols);
+        return new CompactAutomaton[]{left.partitioned(partition), right.partitioned(partition)};
+    }
+
+    static CompactAutomaton withoutEps(CompactAutomaton core) {
+        for (int s = 0; s < core.stateCount(); s++) {
+            if (core.outEnd(s, CompactAutomaton.EPS) > core.outStart(s, CompactAutomaton.EPS)) {
+                return core.eliminateEps();
+            }
+        }
+        return core;
+    }
+
+    // Superstates are numbered by position, their names may not be unique after minimization
+    static CompactAutomaton core(SuperAutomaton dfa) {
+        CompactAutomaton.Builder builder = CompactAutomaton.builder();
+        Map<SuperState, Integer> ids = new IdentityHashMap<>();
+        for (SuperState state : dfa.getStates()) {
+            int id = builder.state(String.valueOf(ids.size()));
+            ids.put(state, id);
+            if (state.getType() == StateType.FINAL) {
+                builder.finalState(id);
+            }
+        }
+        if (!dfa.getStates().isEmpty()) {
+            builder.initial(0);
+        }
+        for (SuperTransition transition : dfa.getTransitions()) {
+            builder.transition(ids.get(transition.getSource()), builder.symbol(transition.getActivator()), ids.get(transition.getTarget()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.novytech.university.superautomata;
+
+import java.util.Arrays;
+
+// Canonical key of a superstate: sorted ids of its source states, hash computed once
+public final class SubsetKey {
+    private final int[] states;
+    private final int hash;
+
+    // Takes ownership of the array, which must be sorted and free of duplicates
+    public SubsetKey(int[] sortedStates) {
+        this.states = sortedStates;
+        this.hash = Arrays.hashCode(sortedStates);
+    }
+
+    public int size() {
+        return states.length;
+    }
+
+    public int state(int index) {
+        return states[index];
+    }
+
+    public int[] states() {
+        return states.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SubsetKey)) {
+            return false;
+        }
+        SubsetKey other = (SubsetKey) o;
+        return hash == other.hash && Arrays.equals(states, other.states);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(states);
+    }
+}
@@ -0,0 +1,41 @@
+package com.novytech.university.superautomata;
+
+import com.novytech.university.automata.CompactAutomaton;
+
+import java.util.Arrays;
+
+// Computes successor subsets over a core; holds scratch buffers, so one instance per thread
+class SubsetSuccessors {
+    private final CompactAutomaton core;
+    private final int[] mark;
+    private final int[] targets;
+    private int stamp;
+
+    SubsetSuccessors(CompactAutomaton core) {
+        this.core = core;
+        this.mark = new int[core.stateCount()];
+        this.targets = new int[core.stateCount()];
+    }
+
+    // null when no state of the subset has an edge on activator
+    SubsetKey successor(SubsetKey source, int activator) {
+        stamp++;
+        int count = 0;
+        for (int i = 0; i < source.size(); i++) {
+            int state = source.state(i);
+            for (int e = core.outStart(state, activator); e < core.outEnd(state, activator); e++) {
+                int target = core.outTarget(e);
+                if (mark[target] != stamp) {
+                    mark[target] = stamp;
+                    targets[count++] = target;
+                }
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        int[] subset = Arrays.copyOf(targets, count);
+        Arrays.sort(subset);
+        return new SubsetKey(subset);
+    }
+}
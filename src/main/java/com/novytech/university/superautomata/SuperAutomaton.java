@@ -1,100 +1,303 @@
 package com.novytech.university.superautomata;
 
 import com.novytech.university.automata.*;
+import com.novytech.university.metrics.MetricsListener;
+import com.novytech.university.metrics.PhaseMetrics;
+import com.novytech.university.metrics.PhaseTimer;
 
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.PrintStream;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 
+@Getter
 public class SuperAutomaton {
     private final List<SuperState> states = new ArrayList<>();
     private final List<SuperTransition> transitions = new ArrayList<>();
 
-    private SuperAutomaton(){}
+    // Largest number of discovered but unexpanded superstates during construction
+    @Getter(AccessLevel.NONE)
+    private int queueHighWater;
+
+    SuperAutomaton(){}
+
+    // Subset construction always registers the initial superstate first
+    public SuperState getInitialState() {
+        return states.get(0);
+    }
+
+    // Merges equivalent superstates and drops the ones that cannot reach a final superstate
+    public Minimization minimize() {
+        return HopcroftMinimizer.minimize(this);
+    }
 
     public void show() {
-        System.out.println("---------- STATES ----------");
-        states.forEach(superState -> System.out.print(superState + " "));
-        System.out.println();
-        System.out.println("---------TRANSITION---------");
-        transitions.forEach(System.out::println);
-        System.out.println("----------------------------");
-        System.out.println();
+        show(System.out);
+    }
+
+    public void show(PrintStream out) {
+        out.println("---------- STATES ----------");
+        states.forEach(superState -> out.print(superState + " "));
+        out.println();
+        out.println("---------TRANSITION---------");
+        transitions.forEach(out::println);
+        out.println("----------------------------");
+        out.println();
     }
 
     public static SuperAutomaton fromAutomaton(Automaton automaton) {
+        return fromCore(CompactAutomaton.of(automaton), automaton.getStates().values().toArray(new State[0]), Integer.MAX_VALUE);
+    }
+
+    public static SuperAutomaton fromAutomaton(CompactAutomaton core) {
+        return fromCore(core, view(core), Integer.MAX_VALUE);
+    }
+
+    // Gives up with IllegalStateException once more than maxStates superstates are discovered
+    public static SuperAutomaton fromAutomaton(CompactAutomaton core, int maxStates) {
+        return fromCore(core, view(core), maxStates);
+    }
+
+    // Same states, numbering and transitions as the sequential construction, whatever the pool size
+    public static SuperAutomaton fromAutomaton(Automaton automaton, ForkJoinPool pool) {
+        return fromCoreInParallel(CompactAutomaton.of(automaton), automaton.getStates().values().toArray(new State[0]), pool);
+    }
+
+    public static SuperAutomaton fromAutomaton(CompactAutomaton core, ForkJoinPool pool) {
+        return fromCoreInParallel(core, view(core), pool);
+    }
+
+    // The listener gets a single DETERMINIZATION sample
+    public static SuperAutomaton fromAutomaton(Automaton automaton, MetricsListener listener) {
+        return measure(listener, () -> fromAutomaton(automaton));
+    }
+
+    public static SuperAutomaton fromAutomaton(CompactAutomaton core, MetricsListener listener) {
+        return measure(listener, () -> fromAutomaton(core));
+    }
+
+    // Allocation is only counted on the calling thread, not on the pool workers
+    public static SuperAutomaton fromAutomaton(CompactAutomaton core, ForkJoinPool pool, MetricsListener listener) {
+        return measure(listener, () -> fromAutomaton(core, pool));
+    }
+
+    private static SuperAutomaton measure(MetricsListener listener, Supplier<SuperAutomaton> construction) {
+        if (listener == MetricsListener.NONE) {
+            return construction.get();
+        }
+        PhaseTimer timer = PhaseTimer.start();
+        SuperAutomaton superAutomaton = construction.get();
+        long wallNanos = timer.elapsedNanos();
+        listener.onPhase(new PhaseMetrics("DETERMINIZATION", wallNanos, timer.allocatedBytes(), superAutomaton.queueHighWater,
+                superAutomaton.transitions.size(), 0, superAutomaton.states.size()));
+        return superAutomaton;
+    }
+
+    // Bare states for the superstate sources, without the transitions a full toAutomaton would allocate
+    private static State[] view(CompactAutomaton core) {
+        State[] view = new State[core.stateCount()];
+        for (int s = 0; s < view.length; s++) {
+            view[s] = new State(core.stateName(s), core.isFinal(s) ? StateType.FINAL : StateType.COMMON);
+            if (core.isTagged()) {
+                view[s].getPatterns().or(core.patterns(s));
+            }
+        }
+        return view;
+    }
+
+    private static SubsetKey initialKey(CompactAutomaton core) {
+        int[] initialStates = core.initialStates();
+        Arrays.sort(initialStates);
+        return new SubsetKey(initialStates);
+    }
+
+    private static SuperState newSuperState(CompactAutomaton core, State[] view, SubsetKey key) {
+        SortedSet<State> sources = new TreeSet<>();
+        boolean mustBeFinal = false;
+        for (int i = 0; i < key.size(); i++) {
+            sources.add(view[key.state(i)]);
+            mustBeFinal = mustBeFinal || core.isFinal(key.state(i));
+        }
+        return new SuperState(sources, mustBeFinal ? StateType.FINAL : StateType.COMMON);
+    }
+
+    void addTransition(SuperState source, Symbol activator, SuperState target) {
+        SuperTransition newSuperTransition = new SuperTransition(source, activator, target);
+        source.addOutboundTransition(newSuperTransition);
+        transitions.add(newSuperTransition);
+    }
+
+    // Subset construction over the integer core; view maps state ids back to the State objects used in sources
+    private static SuperAutomaton fromCore(CompactAutomaton core, State[] view, int maxStates) {
+        // Overlapping range symbols are split into disjoint classes first, or the result would not be deterministic over chars
+        core = core.partitioned();
         SuperAutomaton superAutomaton = new SuperAutomaton();
 
-        SortedSet<State> initialStates = automaton.getInitialStates();
+        Map<SubsetKey, SuperState> known = new HashMap<>();
+        List<SubsetKey> keys = new ArrayList<>();
 
-        SuperState initialSuperState = SuperState.of(initialStates);
+        SubsetKey initialKey = initialKey(core);
+        SuperState initialSuperState = newSuperState(core, view, initialKey);
+        known.put(initialKey, initialSuperState);
+        keys.add(initialKey);
+        superAutomaton.states.add(initialSuperState);
 
-        Queue<SuperState> superStates = new LinkedList<>();
-        superStates.add(initialSuperState);
+        SubsetSuccessors successors = new SubsetSuccessors(core);
+
+        // States list doubles as the BFS queue, every superstate is expanded exactly once
+        for (int next = 0; next < superAutomaton.states.size(); next++) {
+            superAutomaton.queueHighWater = Math.max(superAutomaton.queueHighWater, superAutomaton.states.size() - next);
+            if ((next & 1023) == 0 && Thread.currentThread().isInterrupted()) {
+                // Construction can blow up exponentially; lets a cancelled job stop early
+                throw new CancellationException("Determinization interrupted after " + next + " superstates");
+            }
+            SuperState source = superAutomaton.states.get(next);
+            SubsetKey sourceKey = keys.get(next);
 
-        while (!superStates.isEmpty()) {
-            SuperState source = superStates.remove();
-            boolean shouldAdd = true;
-            for (SuperState s: superAutomaton.states) {
-                if (s.equals(source)) {
-                    shouldAdd = false;
-                    break;
+            for (int activator = 0; activator < core.symbolCount(); activator++) {
+                SubsetKey key = successors.successor(sourceKey, activator);
+                if (key == null) {
+                    continue;
                 }
+                SuperState target = known.get(key);
+                if (target == null) {
+                    if (superAutomaton.states.size() == maxStates) {
+                        throw new IllegalStateException("Cannot determinize: more than " + maxStates + " superstates");
+                    }
+                    target = newSuperState(core, view, key);
+                    known.put(key, target);
+                    keys.add(key);
+                    superAutomaton.states.add(target);
+                }
+                superAutomaton.addTransition(source, core.symbol(activator), target);
             }
-            if (shouldAdd) {
-                superAutomaton.states.add(source);
+        }
+
+        return superAutomaton;
+    }
+
+    // Level-synchronous subset construction: successors of a whole BFS level are computed and registered
+    // concurrently, then merged in (source, symbol) order so numbering never depends on scheduling
+    private static SuperAutomaton fromCoreInParallel(CompactAutomaton core, State[] view, ForkJoinPool pool) {
+        // Overlapping range symbols are split into disjoint classes first, or the result would not be deterministic over chars
+        core = core.partitioned();
+        SuperAutomaton superAutomaton = new SuperAutomaton();
+
+        ConcurrentMap<SubsetKey, Slot> registry = new ConcurrentHashMap<>();
+        List<Slot> slots = new ArrayList<>();
+
+        SubsetKey initialKey = initialKey(core);
+        Slot initialSlot = new Slot(initialKey, newSuperState(core, view, initialKey));
+        initialSlot.registered = true;
+        registry.put(initialKey, initialSlot);
+        slots.add(initialSlot);
+        superAutomaton.states.add(initialSlot.superState);
+
+        int levelStart = 0;
+        while (levelStart < slots.size()) {
+            List<Slot> level = new ArrayList<>(slots.subList(levelStart, slots.size()));
+            superAutomaton.queueHighWater = Math.max(superAutomaton.queueHighWater, level.size());
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Determinization interrupted after " + slots.size() + " superstates");
             }
-            SortedSet<State> sourceStates = source.getSources();
-            Map<Symbol, SortedSet<State>> transitionMap = new HashMap<>();
-
-            sourceStates.stream().map(state -> state.getOutbound().values())
-                    .flatMap(Collection::stream)
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toList())
-                    .forEach(
-                            transition -> {
-                                Symbol activator = transition.getActivator();
-                                State target = transition.getTarget();
-                                SortedSet<State> targets = transitionMap.get(activator);
-                                if (targets == null) {
-                                    targets = new TreeSet<>();
-                                }
-                                targets.add(target);
-
-                                transitionMap.put(activator, targets);
-                            }
-                    );
-            transitionMap.forEach(
-                    (activator, states) -> {
-                            boolean mustBeFinal = false;
-                            states = states.stream().sorted(Comparator.comparing(State::getName)).collect(Collectors.toCollection(TreeSet::new));
-                            StringBuilder nameBuilder = new StringBuilder("{");
-                            for (State state : states) {
-                                nameBuilder.append(state.getName());
-                                mustBeFinal = mustBeFinal || (state.getType().equals(StateType.FINAL));
-                            }
-                            nameBuilder.append("}");
-
-                            String newName = nameBuilder.toString();
-
-                            SuperState superState = new SuperState(states, newName, mustBeFinal ? StateType.FINAL : StateType.COMMON);
-                            SuperTransition newSuperTransition = new SuperTransition(source, activator, superState);
-
-                            boolean willAdd = true;
-                            for (SuperTransition superTransition : superAutomaton.transitions) {
-                                if (superTransition.equals(newSuperTransition)) {
-                                    willAdd = false;
-                                    break;
-                                }
-                            }
-                            if (willAdd) {
-                                source.addOutboundTransition(newSuperTransition);
-                                superAutomaton.transitions.add(newSuperTransition);
-                                superStates.add(superState);
-                            }
+            Slot[][] successors = new Slot[level.size()][];
+            int threshold = Math.max(1, level.size() / (pool.getParallelism() * 4));
+            pool.invoke(new ExpandLevel(core, view, registry, level, successors, 0, level.size(), threshold));
+
+            int levelEnd = slots.size();
+            for (int i = 0; i < successors.length; i++) {
+                SuperState source = level.get(i).superState;
+                for (int activator = 0; activator < core.symbolCount(); activator++) {
+                    Slot target = successors[i][activator];
+                    if (target == null) {
+                        continue;
+                    }
+                    if (!target.registered) {
+                        target.registered = true;
+                        slots.add(target);
+                        superAutomaton.states.add(target.superState);
                     }
-            );
+                    superAutomaton.addTransition(source, core.symbol(activator), target.superState);
+                }
+            }
+            levelStart = levelEnd;
         }
 
         return superAutomaton;
     }
+
+    // Registry entry; registered is only touched by the merging thread
+    private static final class Slot {
+        private final SubsetKey key;
+        private final SuperState superState;
+        private boolean registered;
+
+        private Slot(SubsetKey key, SuperState superState) {
+            this.key = key;
+            this.superState = superState;
+        }
+    }
+
+    private static final class ExpandLevel extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompactAutomaton core;
+        private final State[] view;
+        private final ConcurrentMap<SubsetKey, Slot> registry;
+        private final List<Slot> level;
+        private final Slot[][] successors;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private ExpandLevel(CompactAutomaton core, State[] view, ConcurrentMap<SubsetKey, Slot> registry,
+                            List<Slot> level, Slot[][] successors, int from, int to, int threshold) {
+            this.core = core;
+            this.view = view;
+            this.registry = registry;
+            this.level = level;
+            this.successors = successors;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExpandLevel(core, view, registry, level, successors, from, mid, threshold),
+                        new ExpandLevel(core, view, registry, level, successors, mid, to, threshold));
+                return;
+            }
+            SubsetSuccessors subsetSuccessors = new SubsetSuccessors(core);
+            for (int i = from; i < to; i++) {
+                SubsetKey sourceKey = level.get(i).key;
+                Slot[] row = new Slot[core.symbolCount()];
+                for (int activator = 0; activator < row.length; activator++) {
+                    SubsetKey key = subsetSuccessors.successor(sourceKey, activator);
+                    if (key == null) {
+                        continue;
+                    }
+                    Slot slot = registry.get(key);
+                    if (slot == null) {
+                        Slot created = new Slot(key, newSuperState(core, view, key));
+                        slot = registry.putIfAbsent(key, created);
+                        if (slot == null) {
+                            slot = created;
+                        }
+                    }
+                    row[activator] = slot;
+                }
+                successors[i] = row;
+            }
+        }
+    }
 }
@@ -3,43 +3,82 @@ package com.novytech.university.superautomata;
 import com.novytech.university.automata.State;
 import com.novytech.university.automata.StateType;
 import com.novytech.university.automata.Symbol;
-import com.novytech.university.automata.Transition;
 
 import lombok.*;
 
 import java.util.*;
 
 @Getter
-@AllArgsConstructor
-@EqualsAndHashCode(of = {"name", "type"})
+@EqualsAndHashCode(of = {"sources", "type"})
 public class SuperState {
     private final SortedSet<State> sources;
-    private final String name;
     private @Setter StateType type;
 
     private final Map<Symbol, SuperTransition> inbound = new LinkedHashMap<>();
     private final Map<Symbol, SuperTransition> outbound = new LinkedHashMap<>();
 
+    // Built on first use, most superstates are never printed. Volatile and only assigned once complete, so a
+    // superstate read from several threads at worst builds them twice.
+    @Getter(AccessLevel.NONE)
+    private volatile String name;
+    @Getter(AccessLevel.NONE)
+    private volatile BitSet patterns;
+
+    public SuperState(SortedSet<State> sources, StateType type) {
+        this.sources = sources;
+        this.type = type;
+    }
+
+    public SuperState(SortedSet<State> sources, String name, StateType type) {
+        this.sources = sources;
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getName() {
+        String built = name;
+        if (built == null) {
+            StringBuilder nameBuilder = new StringBuilder("{");
+            for (State s : sources) {
+                nameBuilder.append(s.getName());
+            }
+            built = nameBuilder.append("}").toString();
+            name = built;
+        }
+        return built;
+    }
+
+    // Copy of the union of the source states' pattern ids
+    public BitSet getPatterns() {
+        BitSet built = patterns;
+        if (built == null) {
+            built = new BitSet();
+            for (State s : sources) {
+                built.or(s.getPatterns());
+            }
+            patterns = built;
+        }
+        return (BitSet) built.clone();
+    }
+
     @Override
     public String toString() {
         if (type == StateType.FINAL) {
-            return "(" + name + ")";
+            BitSet accepted = getPatterns();
+            return "(" + getName() + ")" + (accepted.isEmpty() ? "" : accepted);
         }
-        return name;
+        return getName();
     }
 
     public static SuperState of(Set<State> states) {
         TreeSet<State> sources = new TreeSet<>(states);
-        String name = "{";
         StateType type = StateType.COMMON;
         for (State s :sources) {
-            name = name + s.getName();
             if (type != StateType.FINAL) {
                 type = s.getType();
             }
         }
-        name += "}";
-        return new SuperState(sources, name, type);
+        return new SuperState(sources, type);
     }
 
     public void addOutboundTransition(SuperTransition t) {